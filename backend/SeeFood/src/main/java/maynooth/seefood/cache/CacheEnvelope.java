@@ -0,0 +1,17 @@
+package maynooth.seefood.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 配置了软过期的缓存，值在 Redis 和本地都包一层，记录何时该提前刷新
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CacheEnvelope {
+    private Object value;
+    //毫秒时间戳
+    private long refreshAt;
+}
@@ -0,0 +1,56 @@
+package maynooth.seefood.cache;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 订阅缓存失效频道。监听容器不注册成 bean，否则 Redis 不可用时应用无法启动；
+ * 启动后订阅，失败或连接断开后定时重试，订阅成功前本地缓存不生效。
+ */
+@Component
+@Slf4j
+public class CacheInvalidationSubscriber {
+
+    private final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    private final TwoLevelCacheManager cacheManager;
+
+    public CacheInvalidationSubscriber(RedisConnectionFactory connectionFactory, TwoLevelCacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(TwoLevelCacheManager.CHANNEL));
+        container.afterPropertiesSet();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        subscribe();
+    }
+
+    @Scheduled(fixedDelay = 30000, initialDelay = 30000)
+    public void subscribe() {
+        if (container.isRunning() && container.isListening()) {
+            cacheManager.setSubscribed(true);
+            return;
+        }
+        cacheManager.setSubscribed(false);
+        try {
+            container.start();
+            cacheManager.setSubscribed(container.isListening());
+        } catch (Exception e) {
+            container.stop();
+            log.warn("Cache invalidation channel unavailable, local cache disabled: {}", e.toString());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws Exception {
+        container.destroy();
+    }
+}
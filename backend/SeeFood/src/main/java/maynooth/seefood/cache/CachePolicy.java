@@ -0,0 +1,15 @@
+package maynooth.seefood.cache;
+
+import java.time.Duration;
+
+/**
+ * 单个缓存的加载策略，在 RedisCacheConfig 里按 cacheName 配置
+ *
+ * @param softTtl         软过期时间，超过后仍返回旧值，同时后台异步刷新；null 表示不提前刷新。应小于 Redis 的 TTL
+ * @param distributedLock 未命中时是否用 Redis 锁保证多个节点只有一个去加载
+ * @param lockTimeout     锁的过期时间，也是没拿到锁的节点等待别人加载的最长时间
+ */
+public record CachePolicy(Duration softTtl, boolean distributedLock, Duration lockTimeout) {
+
+    public static final CachePolicy NONE = new CachePolicy(null, false, null);
+}
@@ -0,0 +1,106 @@
+package maynooth.seefood.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Redis 缓存值的二进制编码：Smile（二进制 JSON，类型信息与 GenericJackson2JsonRedisSerializer 一致），
+ * 超过阈值再用 LZ4 压缩。
+ * <p>
+ * 格式：2 字节魔数 + 1 字节标志，压缩时后跟 4 字节原始长度，再后面是数据。
+ * 读到没有魔数的值按原来的 JSON 格式解析，切换编码后 Redis 里的旧缓存仍然可读。
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    private static final byte MAGIC_0 = (byte) 0xFE;
+    private static final byte MAGIC_1 = 'S';
+    private static final byte PLAIN = 0;
+    private static final byte LZ4 = 1;
+    private static final int HEADER = 3;
+    private static final int MAX_LENGTH = 64 * 1024 * 1024;
+
+    private final GenericJackson2JsonRedisSerializer smile;
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+    private final int compressThreshold;
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private final LZ4SafeDecompressor decompressor = LZ4Factory.fastestInstance().safeDecompressor();
+
+    /**
+     * @param compressThreshold Smile 编码后达到这个字节数才压缩
+     */
+    public CompactRedisSerializer(int compressThreshold) {
+        ObjectMapper mapper = new ObjectMapper(new SmileFactory());
+        GenericJackson2JsonRedisSerializer.registerNullValueSerializer(mapper, "@class");
+        mapper.activateDefaultTyping(mapper.getPolymorphicTypeValidator(),
+                ObjectMapper.DefaultTyping.EVERYTHING, JsonTypeInfo.As.PROPERTY);
+        this.smile = new GenericJackson2JsonRedisSerializer(mapper);
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] encoded = smile.serialize(value);
+        if (encoded.length >= compressThreshold) {
+            byte[] compressed = new byte[HEADER + 4 + compressor.maxCompressedLength(encoded.length)];
+            int length = compressor.compress(encoded, 0, encoded.length, compressed, HEADER + 4);
+            // 压缩后没变小就存原文
+            if (length < encoded.length) {
+                compressed[0] = MAGIC_0;
+                compressed[1] = MAGIC_1;
+                compressed[2] = LZ4;
+                ByteBuffer.wrap(compressed, HEADER, 4).putInt(encoded.length);
+                return Arrays.copyOf(compressed, HEADER + 4 + length);
+            }
+        }
+        byte[] plain = new byte[HEADER + encoded.length];
+        plain[0] = MAGIC_0;
+        plain[1] = MAGIC_1;
+        plain[2] = PLAIN;
+        System.arraycopy(encoded, 0, plain, HEADER, encoded.length);
+        return plain;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes.length < HEADER || bytes[0] != MAGIC_0 || bytes[1] != MAGIC_1) {
+            return json.deserialize(bytes);
+        }
+        if (bytes[2] == PLAIN) {
+            return smile.deserialize(Arrays.copyOfRange(bytes, HEADER, bytes.length));
+        }
+        if (bytes[2] != LZ4 || bytes.length < HEADER + 4) {
+            throw new SerializationException("Unknown cache value encoding: " + bytes[2]);
+        }
+        int length = ByteBuffer.wrap(bytes, HEADER, 4).getInt();
+        if (length < 0 || length > MAX_LENGTH) {
+            throw new SerializationException("Corrupt LZ4 cache value, length " + length);
+        }
+        byte[] encoded = new byte[length];
+        try {
+            int decoded = decompressor.decompress(bytes, HEADER + 4, bytes.length - HEADER - 4, encoded, 0);
+            if (decoded != length) {
+                throw new SerializationException("Corrupt LZ4 cache value, expected " + length + " bytes but got " + decoded);
+            }
+        } catch (LZ4Exception e) {
+            throw new SerializationException("Corrupt LZ4 cache value", e);
+        }
+        return smile.deserialize(encoded);
+    }
+}
@@ -0,0 +1,91 @@
+package maynooth.seefood.cache;
+
+import maynooth.seefood.event.CatalogChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 本节点对外内容的版本号，用来生成 ETag / Last-Modified。
+ * 目录版本在海鲜目录变化或 seafood:top 失效时递增，单个海鲜的版本在 item:detail 对应 key 失效时递增；
+ * 其它节点的失效通过 {@link TwoLevelCacheManager} 的广播同样会递增本节点的版本。
+ * 版本号只在内存里，每次启动换一个随机 epoch，重启后旧的 ETag 不会误命中。
+ */
+@Component
+public class ContentVersions {
+
+    private final long epoch = ThreadLocalRandom.current().nextLong(1L << 32);
+    private volatile Version catalog = new Version(0, now());
+    private final Map<Integer, Version> items = new ConcurrentHashMap<>();
+    //item:detail 整个清空时递增，所有海鲜的版本一起变
+    private volatile Version allItems = new Version(0, now());
+
+    public ContentVersions(TwoLevelCacheManager cacheManager) {
+        cacheManager.addInvalidationListener(this::onCacheInvalidated);
+    }
+
+    public long epoch() {
+        return epoch;
+    }
+
+    public Version catalog() {
+        return catalog;
+    }
+
+    public Version item(int seafoodId) {
+        Version base = allItems;
+        Version item = items.get(seafoodId);
+        if (item == null) {
+            return base;
+        }
+        return new Version(base.version() + item.version(), Math.max(base.modifiedMillis(), item.modifiedMillis()));
+    }
+
+    public synchronized void bumpCatalog() {
+        catalog = new Version(catalog.version() + 1, now());
+    }
+
+    public void bumpItem(int seafoodId) {
+        items.merge(seafoodId, new Version(1, now()),
+                (old, one) -> new Version(old.version() + 1, one.modifiedMillis()));
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        bumpCatalog();
+        if (event.getSeafoodId() != null) {
+            bumpItem(event.getSeafoodId());
+        }
+    }
+
+    void onCacheInvalidated(String cacheName, Object key) {
+        if ("seafood:top".equals(cacheName)) {
+            bumpCatalog();
+        } else if ("item:detail".equals(cacheName)) {
+            if (key == null) {
+                synchronized (this) {
+                    allItems = new Version(allItems.version() + 1, now());
+                }
+            } else {
+                try {
+                    bumpItem(Integer.parseInt(key.toString()));
+                } catch (NumberFormatException ignored) {
+                    // 不是海鲜 id 的 key 与 ETag 无关
+                }
+            }
+        }
+    }
+
+    private static long now() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * @param modifiedMillis 最后一次变化的时间
+     */
+    public record Version(long version, long modifiedMillis) {
+    }
+}
@@ -0,0 +1,178 @@
+package maynooth.seefood.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import maynooth.seefood.event.CatalogChangedEvent;
+import maynooth.seefood.pojo.Result;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 热点接口的响应缓存：直接缓存 Result 序列化后的 UTF-8 JSON 字节（较大的再存一份 gzip），
+ * 命中时原样写到输出流，不再经过缓存反序列化和 Jackson 序列化。
+ * <p>
+ * 分组名与对应的 Spring 缓存同名，随 {@link TwoLevelCacheManager} 的失效通知一起清掉；
+ * 时令海鲜来自内存目录，随 {@link CatalogChangedEvent} 清掉。
+ */
+@Component
+public class ResponseBytesCache {
+
+    public static final String SEASON = "seafood:season";
+
+    //小于这个长度不压缩
+    private static final int GZIP_THRESHOLD = 1024;
+    private static final String JSON_UTF8 = MediaType.APPLICATION_JSON_VALUE + ";charset=UTF-8";
+
+    private final ObjectMapper objectMapper;
+    private final TwoLevelCacheManager cacheManager;
+    private final Cache<String, CachedResponse> responses;
+    //每个分组的失效次数，生成响应期间发生过失效就不缓存
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ResponseBytesCache(ObjectMapper objectMapper, TwoLevelCacheManager cacheManager,
+                              @Value("${seefood.cache.response.max-bytes:33554432}") long maxBytes,
+                              @Value("${seefood.cache.response.ttl:60s}") Duration ttl) {
+        this.objectMapper = objectMapper;
+        this.cacheManager = cacheManager;
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, CachedResponse value) -> value.json.length + (value.gzip == null ? 0 : value.gzip.length))
+                .expireAfterWrite(ttl)
+                .build();
+        cacheManager.addInvalidationListener(this::invalidate);
+    }
+
+    /**
+     * 命中时直接写出缓存的字节；未命中时调用 loader 生成 Result，code 为 200 才缓存
+     *
+     * @param group 与被缓存的数据同名的分组，如 item:detail
+     * @param key   与 Spring 缓存相同的 key
+     */
+    public void write(String group, Object key, Supplier<Result> loader,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        send(get(group, key, loader), request, response);
+    }
+
+    /**
+     * 不缓存，直接写出，用于参数错误等同一接口上的其它响应
+     */
+    public void write(Result result, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        send(encode(result), request, response);
+    }
+
+    private void send(CachedResponse cached, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(JSON_UTF8);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        byte[] body = cached.json;
+        if (cached.gzip != null && acceptsGzip(request)) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = cached.gzip;
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("entries", responses.estimatedSize());
+        return stats;
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        invalidate(SEASON, null);
+    }
+
+    /**
+     * @param key 为 null 时清掉整个分组
+     */
+    void invalidate(String group, Object key) {
+        generation(group).incrementAndGet();
+        if (key == null) {
+            String prefix = group + "::";
+            responses.asMap().keySet().removeIf(k -> k.startsWith(prefix));
+        } else {
+            responses.invalidate(group + "::" + key);
+        }
+    }
+
+    CachedResponse get(String group, Object key, Supplier<Result> loader) {
+        String cacheKey = group + "::" + key;
+        boolean enabled = enabled(group);
+        if (enabled) {
+            CachedResponse cached = responses.getIfPresent(cacheKey);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+        AtomicLong generation = generation(group);
+        long before = generation.get();
+        Result result = loader.get();
+        CachedResponse built = encode(result);
+        if (enabled && result.getCode() == 200 && generation.get() == before) {
+            responses.put(cacheKey, built);
+            if (generation.get() != before) {
+                responses.invalidate(cacheKey);
+            }
+        }
+        return built;
+    }
+
+    //其它节点的失效要靠 Redis 广播，没订阅上时只缓存本地目录的数据
+    private boolean enabled(String group) {
+        return SEASON.equals(group) || cacheManager.isSubscribed();
+    }
+
+    private AtomicLong generation(String group) {
+        return generations.computeIfAbsent(group, g -> new AtomicLong());
+    }
+
+    private CachedResponse encode(Result result) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(result);
+            byte[] gzip = null;
+            if (json.length >= GZIP_THRESHOLD) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+                try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+                    gz.write(json);
+                }
+                gzip = out.toByteArray();
+            }
+            return new CachedResponse(json, gzip);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return accept != null && accept.toLowerCase().contains("gzip");
+    }
+
+    record CachedResponse(byte[] json, byte[] gzip) {
+    }
+}
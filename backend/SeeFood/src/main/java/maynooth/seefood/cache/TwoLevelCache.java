@@ -0,0 +1,363 @@
+package maynooth.seefood.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import maynooth.seefood.pojo.DTO.CacheStatsDTO;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一级为进程内 Caffeine，二级为 Redis。读先查本地，未命中再查 Redis 并回填本地；
+ * 写和删除同时作用于两级，并通过 {@link TwoLevelCacheManager} 广播给其它节点清掉本地副本。
+ * 本地命中返回的是同一个对象，调用方不能修改缓存的返回值。
+ * <p>
+ * {@code @Cacheable(sync = true)} 会走 {@link #get(Object, Callable)}：同一个 key 本节点只有一个线程加载，
+ * 其余线程等它的结果；按 {@link CachePolicy} 还可以跨节点加锁，以及软过期后返回旧值并在后台刷新。
+ * 后台刷新在别的线程里调用被缓存的方法，拿不到请求上下文，只适用于与当前用户无关的缓存。
+ */
+@Slf4j
+public class TwoLevelCache implements Cache {
+
+    private final String name;
+    private final Cache redis;
+    private final TwoLevelCacheManager manager;
+    private final boolean local;
+    private final CachePolicy policy;
+
+    private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    //每次失效加一，查 Redis 期间发生过失效就不回填本地，避免把旧值写回一级缓存
+    private final AtomicLong generation = new AtomicLong();
+
+    TwoLevelCache(String name, Cache redis, TwoLevelCacheManager manager, boolean local, CachePolicy policy) {
+        this.name = name;
+        this.redis = redis;
+        this.manager = manager;
+        this.local = local;
+        this.policy = policy;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return redis.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object stored = lookup(key);
+        return stored == null ? null : new SimpleValueWrapper(unwrap(stored));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object stored = lookup(key);
+        if (stored != null) {
+            if (stored instanceof CacheEnvelope envelope && System.currentTimeMillis() >= envelope.getRefreshAt()) {
+                manager.refreshAsync(() -> refresh(key, valueLoader));
+            }
+            return (T) unwrap(stored);
+        }
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            try {
+                return (T) running.join();
+            } catch (CompletionException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+        try {
+            Object value = load(key, valueLoader);
+            mine.complete(value);
+            return (T) value;
+        } catch (Throwable e) {
+            mine.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        redis.put(key, wrap(value));
+        invalidateLocal(key);
+        manager.publishEvict(name, key);
+    }
+
+    @Override
+    public void evict(Object key) {
+        redis.evict(key);
+        invalidateLocal(key);
+        manager.publishEvict(name, key);
+    }
+
+    @Override
+    public void clear() {
+        redis.clear();
+        invalidateLocal(null);
+        manager.publishClear(name);
+    }
+
+    /**
+     * 批量读取：先查本地，剩下的用一次 MGET 从 Redis 取
+     *
+     * @return 命中的 key 和值，未命中的不在结果里
+     */
+    public Map<Object, Object> getAll(Collection<?> keys) {
+        Map<Object, Object> found = new LinkedHashMap<>();
+        List<Object> remaining = new ArrayList<>();
+        for (Object key : keys) {
+            Object stored = local ? manager.getLocal(name, key) : null;
+            if (stored != null) {
+                l1Hits.increment();
+                found.put(key, unwrap(stored));
+            } else {
+                remaining.add(key);
+            }
+        }
+        if (remaining.isEmpty()) {
+            return found;
+        }
+        long before = generation.get();
+        if (!(redis instanceof RedisCache redisCache)) {
+            remaining.forEach(key -> {
+                ValueWrapper remote = redis.get(key);
+                collect(found, key, remote == null ? null : remote.get(), before);
+            });
+            return found;
+        }
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        List<byte[]> values = manager.multiGet(remaining.stream().map(key -> redisKey(config, key)).toList());
+        for (int i = 0; i < remaining.size(); i++) {
+            byte[] bytes = values == null ? null : values.get(i);
+            Object value = bytes == null ? null : config.getValueSerializationPair().read(ByteBuffer.wrap(bytes));
+            collect(found, remaining.get(i), value, before);
+        }
+        return found;
+    }
+
+    /**
+     * 批量写入刚从库里加载的值，Redis 部分走一次 pipeline；不广播失效，其它节点本来就没有这些值
+     */
+    public void putAll(Map<?, ?> values) {
+        long before = generation.get();
+        if (!(redis instanceof RedisCache redisCache)) {
+            values.forEach((key, value) -> store(key, value, before));
+            return;
+        }
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        List<byte[]> keys = new ArrayList<>();
+        List<byte[]> encoded = new ArrayList<>();
+        List<Duration> ttls = new ArrayList<>();
+        values.forEach((key, value) -> {
+            if (value == null) {
+                return;
+            }
+            Object stored = wrap(value);
+            keys.add(redisKey(config, key));
+            encoded.add(ByteUtils.getBytes(config.getValueSerializationPair().write(stored)));
+            ttls.add(config.getTtlFunction().getTimeToLive(key, value));
+            fillLocal(key, stored, before);
+        });
+        manager.multiSet(keys, encoded, ttls);
+    }
+
+    /**
+     * 清本地副本，key 为 null 时清掉整个缓存；其它节点的失效消息也走这里
+     */
+    void invalidateLocal(Object key) {
+        generation.incrementAndGet();
+        if (key == null) {
+            manager.clearLocal(name);
+        } else {
+            manager.evictLocal(name, key);
+        }
+        manager.fireInvalidated(name, key);
+    }
+
+    CacheStatsDTO stats() {
+        long l1 = l1Hits.sum();
+        long l2 = l2Hits.sum();
+        long miss = misses.sum();
+        long total = l1 + l2 + miss;
+        return new CacheStatsDTO(name, l1, l2, miss,
+                total == 0 ? 0 : (double) l1 / total,
+                total == 0 ? 0 : (double) (l1 + l2) / total,
+                manager.localSize(name), coalesced.sum(), refreshes.sum());
+    }
+
+    //先本地后 Redis，返回存储的原始值（可能是 CacheEnvelope）
+    private Object lookup(Object key) {
+        Object stored = local ? manager.getLocal(name, key) : null;
+        if (stored != null) {
+            l1Hits.increment();
+            return stored;
+        }
+        long before = generation.get();
+        ValueWrapper remote = redis.get(key);
+        if (remote != null && remote.get() != null) {
+            l2Hits.increment();
+            fillLocal(key, remote.get(), before);
+            return remote.get();
+        }
+        misses.increment();
+        return null;
+    }
+
+    private void collect(Map<Object, Object> found, Object key, Object stored, long before) {
+        if (stored == null) {
+            misses.increment();
+            return;
+        }
+        l2Hits.increment();
+        fillLocal(key, stored, before);
+        found.put(key, unwrap(stored));
+    }
+
+    //与 RedisCache 生成 key 的方式一致：前缀 + 转成字符串的 key
+    private String redisKeyString(RedisCacheConfiguration config, Object key) {
+        String converted = key instanceof String string ? string : config.getConversionService().convert(key, String.class);
+        return config.usePrefix() ? config.getKeyPrefixFor(name) + converted : converted;
+    }
+
+    private byte[] redisKey(RedisCacheConfiguration config, Object key) {
+        return ByteUtils.getBytes(config.getKeySerializationPair().write(redisKeyString(config, key)));
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) throws Exception {
+        long before = generation.get();
+        String token = null;
+        if (policy.distributedLock()) {
+            token = manager.tryLock(name, key, policy.lockTimeout());
+            if (token == null) {
+                // 别的节点正在加载，等它写进 Redis
+                Object loaded = awaitRemote(key, before);
+                if (loaded != null) {
+                    return unwrap(loaded);
+                }
+            }
+        }
+        try {
+            Object value = valueLoader.call();
+            store(key, value, before);
+            return value;
+        } finally {
+            if (token != null) {
+                manager.unlock(name, key, token);
+            }
+        }
+    }
+
+    private Object awaitRemote(Object key, long before) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + policy.lockTimeout().toMillis();
+        while (System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            ValueWrapper remote = redis.get(key);
+            if (remote != null && remote.get() != null) {
+                fillLocal(key, remote.get(), before);
+                return remote.get();
+            }
+        }
+        return null;
+    }
+
+    //后台刷新：已有同 key 的加载或者别的节点拿着锁就跳过，期间继续返回旧值
+    private void refresh(Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, mine) != null) {
+            return;
+        }
+        String token = null;
+        try {
+            if (policy.distributedLock()) {
+                token = manager.tryLock(name, key, policy.lockTimeout());
+                if (token == null) {
+                    return;
+                }
+            }
+            long before = generation.get();
+            Object value = valueLoader.call();
+            store(key, value, before);
+            manager.fireInvalidated(name, key);
+            manager.publishEvict(name, key);
+            refreshes.increment();
+            mine.complete(value);
+        } catch (Throwable e) {
+            mine.completeExceptionally(e);
+            log.warn("Refresh-ahead of {}::{} failed: {}", name, key, e.toString());
+        } finally {
+            if (token != null) {
+                manager.unlock(name, key, token);
+            }
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private void store(Object key, Object value, long before) {
+        //Redis 缓存不存 null
+        if (value == null) {
+            return;
+        }
+        Object stored = wrap(value);
+        redis.put(key, stored);
+        fillLocal(key, stored, before);
+    }
+
+    private Object wrap(Object value) {
+        if (policy.softTtl() == null || value == null) {
+            return value;
+        }
+        return new CacheEnvelope(value, System.currentTimeMillis() + policy.softTtl().toMillis());
+    }
+
+    private static Object unwrap(Object stored) {
+        return stored instanceof CacheEnvelope envelope ? envelope.getValue() : stored;
+    }
+
+    private void fillLocal(Object key, Object value, long before) {
+        if (!local || value == null || generation.get() != before) {
+            return;
+        }
+        manager.putLocal(name, key, value);
+        // 写入本地的同时有失效发生，撤回刚写入的值
+        if (generation.get() != before) {
+            manager.evictLocal(name, key);
+        }
+    }
+}
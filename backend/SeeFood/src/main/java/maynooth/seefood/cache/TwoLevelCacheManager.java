@@ -0,0 +1,268 @@
+package maynooth.seefood.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import maynooth.seefood.pojo.DTO.CacheStatsDTO;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * 两级缓存管理器：配置了本地缓存或 {@link CachePolicy} 的 cacheName 包装成 {@link TwoLevelCache}，其余直接用 Redis。
+ * 所有缓存共用一个按序列化大小计权重的 Caffeine（W-TinyLFU 淘汰），总容量有上限。
+ * 本地失效通过 Redis 频道广播，消息格式为 "节点ID|cacheName|key"，key 为空表示清空整个缓存。
+ * 没订阅上失效频道时收不到其它节点的失效消息，这期间不使用本地缓存。
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener, DisposableBean {
+
+    public static final String CHANNEL = "seefood:cache:invalidate";
+    private static final String LOCK_PREFIX = "seefood:cache:lock:";
+    //只删除自己加的锁
+    private static final DefaultRedisScript<Long> UNLOCK = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    private final CacheManager redisCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final Set<String> localCacheNames;
+    private final Map<String, CachePolicy> policies;
+    private final com.github.benmanes.caffeine.cache.Cache<LocalKey, Object> local;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+    private volatile boolean subscribed;
+    //缓存值失效或被刷新时通知，参数为 cacheName 和 key（null 表示整个缓存）
+    private final List<BiConsumer<String, Object>> invalidationListeners = new CopyOnWriteArrayList<>();
+    //软过期后的后台刷新，队列满了就等下次访问再触发
+    private final ThreadPoolExecutor refresher = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(64), r -> {
+                Thread thread = new Thread(r, "cache-refresh");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+
+    /**
+     * @param maxBytes   本地缓存总大小上限，按值的 JSON 序列化长度估算
+     * @param ttl        本地副本最长存活时间，广播丢失时靠它兜底
+     * @param serializer 用来估算值的大小，与 Redis 值序列化器相同
+     * @param policies   按 cacheName 配置的加载策略
+     */
+    public TwoLevelCacheManager(CacheManager redisCacheManager, StringRedisTemplate redisTemplate,
+                                Collection<String> localCacheNames, long maxBytes, Duration ttl,
+                                RedisSerializer<Object> serializer, Map<String, CachePolicy> policies) {
+        this.redisCacheManager = redisCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.localCacheNames = Set.copyOf(localCacheNames);
+        this.policies = Map.copyOf(policies);
+        this.local = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((LocalKey key, Object value) -> weigh(serializer, value))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache redis = redisCacheManager.getCache(name);
+        if (redis == null || (!localCacheNames.contains(name) && !policies.containsKey(name))) {
+            return redis;
+        }
+        return caches.computeIfAbsent(name, n -> new TwoLevelCache(n, redis, this,
+                localCacheNames.contains(n), policies.getOrDefault(n, CachePolicy.NONE)));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+
+    /**
+     * 各缓存的分级命中统计，以及本地缓存整体的淘汰情况
+     */
+    public Map<String, Object> stats() {
+        List<CacheStatsDTO> perCache = new ArrayList<>();
+        new TreeSet<>(caches.keySet()).forEach(name -> perCache.add(((TwoLevelCache) getCache(name)).stats()));
+        CacheStats localStats = local.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("caches", perCache);
+        result.put("localEnabled", subscribed);
+        result.put("localEntries", local.estimatedSize());
+        result.put("localEvictions", localStats.evictionCount());
+        result.put("localEvictedBytes", localStats.evictionWeight());
+        return result;
+    }
+
+    /**
+     * 订阅状态变化时调用；重新订阅前可能漏掉了消息，清空本地缓存
+     */
+    public void setSubscribed(boolean subscribed) {
+        if (subscribed && !this.subscribed) {
+            local.invalidateAll();
+        }
+        this.subscribed = subscribed;
+    }
+
+    public boolean isSubscribed() {
+        return subscribed;
+    }
+
+    /**
+     * 本节点或其它节点上某个缓存值失效、被后台刷新时回调，用于清理由缓存值派生出的数据
+     */
+    public void addInvalidationListener(BiConsumer<String, Object> listener) {
+        invalidationListeners.add(listener);
+    }
+
+    void fireInvalidated(String name, Object key) {
+        invalidationListeners.forEach(listener -> listener.accept(name, key));
+    }
+
+    //收到其它节点的失效消息
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        String key = parts[2].isEmpty() ? null : parts[2];
+        TwoLevelCache cache = caches.get(parts[1]);
+        if (cache != null) {
+            cache.invalidateLocal(key);
+        } else {
+            // 本节点还没用过这个缓存，没有本地副本，但派生数据（ETag 版本等）仍要更新
+            fireInvalidated(parts[1], key);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        refresher.shutdownNow();
+    }
+
+    void refreshAsync(Runnable refresh) {
+        try {
+            refresher.execute(refresh);
+        } catch (RejectedExecutionException e) {
+            log.debug("Cache refresh queue full, skipping");
+        }
+    }
+
+    /**
+     * @return 加锁成功返回锁的 token，已被占用返回 null；Redis 不可用时当作加锁成功，各节点自己加载
+     */
+    String tryLock(String name, Object key, Duration timeout) {
+        String token = UUID.randomUUID().toString();
+        try {
+            Boolean ok = redisTemplate.opsForValue().setIfAbsent(LOCK_PREFIX + name + ":" + key, token, timeout);
+            return Boolean.TRUE.equals(ok) ? token : null;
+        } catch (Exception e) {
+            log.warn("Cache lock unavailable for {}::{}: {}", name, key, e.toString());
+            return token;
+        }
+    }
+
+    void unlock(String name, Object key, String token) {
+        try {
+            redisTemplate.execute(UNLOCK, List.of(LOCK_PREFIX + name + ":" + key), token);
+        } catch (Exception e) {
+            // 锁会自己过期
+            log.warn("Cache unlock failed for {}::{}: {}", name, key, e.toString());
+        }
+    }
+
+    List<byte[]> multiGet(List<byte[]> keys) {
+        return redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.stringCommands().mGet(keys.toArray(new byte[0][])));
+    }
+
+    void multiSet(List<byte[]> keys, List<byte[]> values, List<Duration> ttls) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < keys.size(); i++) {
+                Duration ttl = ttls.get(i);
+                Expiration expiration = ttl == null || ttl.isZero() || ttl.isNegative()
+                        ? Expiration.persistent() : Expiration.from(ttl);
+                connection.stringCommands().set(keys.get(i), values.get(i), expiration, RedisStringCommands.SetOption.upsert());
+            }
+            return null;
+        });
+    }
+
+    Object getLocal(String name, Object key) {
+        if (!subscribed) {
+            return null;
+        }
+        return local.getIfPresent(new LocalKey(name, String.valueOf(key)));
+    }
+
+    void putLocal(String name, Object key, Object value) {
+        if (!subscribed) {
+            return;
+        }
+        local.put(new LocalKey(name, String.valueOf(key)), value);
+    }
+
+    void evictLocal(String name, Object key) {
+        local.invalidate(new LocalKey(name, String.valueOf(key)));
+    }
+
+    void clearLocal(String name) {
+        local.asMap().keySet().removeIf(key -> key.cacheName().equals(name));
+    }
+
+    long localSize(String name) {
+        return local.asMap().keySet().stream().filter(key -> key.cacheName().equals(name)).count();
+    }
+
+    void publishEvict(String name, Object key) {
+        publish(name + "|" + key);
+    }
+
+    void publishClear(String name) {
+        publish(name + "|");
+    }
+
+    private void publish(String body) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, nodeId + "|" + body);
+        } catch (Exception e) {
+            // 其它节点的本地副本最多在 ttl 后过期
+            log.warn("Cache invalidation broadcast failed for {}: {}", body, e.toString());
+        }
+    }
+
+    private static int weigh(RedisSerializer<Object> serializer, Object value) {
+        try {
+            byte[] bytes = serializer.serialize(value);
+            return bytes == null ? 1 : Math.max(1, bytes.length);
+        } catch (Exception e) {
+            return 1024;
+        }
+    }
+
+    //Redis 的 key 也是字符串形式，本地用同样的形式，方便按广播里的 key 失效
+    private record LocalKey(String cacheName, String key) {
+    }
+}
@@ -1,37 +1,59 @@
 package maynooth.seefood.config;
 
+import maynooth.seefood.cache.CachePolicy;
+import maynooth.seefood.cache.CompactRedisSerializer;
+import maynooth.seefood.cache.TwoLevelCacheManager;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Redis 缓存配置，指定全局与部分缓存的 TTL 以及序列化方式。
+ * 热点缓存在 Redis 前面再加一层本地缓存，见 {@link TwoLevelCacheManager}。
+ * 热点缓存的加载策略（软过期提前刷新、跨节点加锁）在 {@link #cachePolicies()} 里按 cacheName 配置，
+ * 只对 {@code @Cacheable(sync = true)} 生效。
  */
 @Configuration
 @EnableCaching
 public class RedisCacheConfig {
 
+    //本地缓存估算大小也用它
+    private final GenericJackson2JsonRedisSerializer valueSerializer = new GenericJackson2JsonRedisSerializer();
+
+    /**
+     * @param codec             默认的值编码：compact（Smile + LZ4，兼容读取旧的 JSON 值）或 json
+     * @param compressThreshold compact 编码下超过这个字节数才压缩
+     */
     @Bean
-    public RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory) {
+    public RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory,
+                                               @Value("${seefood.cache.codec:compact}") String codec,
+                                               @Value("${seefood.cache.compress-threshold:512}") int compressThreshold) {
+        RedisSerializer<Object> compact = new CompactRedisSerializer(compressThreshold);
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(10))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                        "json".equals(codec) ? valueSerializer : compact))
                 .disableCachingNullValues();
 
+        //单个缓存要换编码时在这里用 serializeValuesWith 覆盖
         Map<String, RedisCacheConfiguration> cacheConfigs = new HashMap<>();
         cacheConfigs.put("item:detail", defaultConfig.entryTtl(Duration.ofMinutes(30)));
         cacheConfigs.put("seafood:top", defaultConfig.entryTtl(Duration.ofMinutes(5)));
-        cacheConfigs.put("seafood:season", defaultConfig.entryTtl(Duration.ofHours(12)));
         cacheConfigs.put("recommendations", defaultConfig.entryTtl(Duration.ofMinutes(30)));
 
         return RedisCacheManager.builder(RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory))
@@ -39,5 +61,26 @@ public class RedisCacheConfig {
                 .withInitialCacheConfigurations(cacheConfigs)
                 .build();
     }
-}
 
+    /**
+     * 软过期要比上面的 Redis TTL 短，留出后台刷新的时间
+     */
+    static Map<String, CachePolicy> cachePolicies() {
+        Map<String, CachePolicy> policies = new HashMap<>();
+        // putViews 每次都会清掉 seafood:top，重建由一个节点负责
+        policies.put("seafood:top", new CachePolicy(Duration.ofMinutes(4), true, Duration.ofSeconds(5)));
+        policies.put("item:detail", new CachePolicy(Duration.ofMinutes(25), true, Duration.ofSeconds(3)));
+        return policies;
+    }
+
+    //@Cacheable 默认使用的 CacheManager
+    @Bean
+    @Primary
+    public TwoLevelCacheManager cacheManager(RedisCacheManager redisCacheManager, StringRedisTemplate redisTemplate,
+                                             @Value("${seefood.cache.local.caches}") List<String> localCaches,
+                                             @Value("${seefood.cache.local.max-bytes:67108864}") long maxBytes,
+                                             @Value("${seefood.cache.local.ttl:60s}") Duration ttl) {
+        return new TwoLevelCacheManager(redisCacheManager, redisTemplate, localCaches, maxBytes, ttl, valueSerializer,
+                cachePolicies());
+    }
+}
@@ -60,6 +60,7 @@ public class SecurityConfig implements WebMvcConfigurer {
                 .authorizeHttpRequests(auth -> {
                     auth
                             .requestMatchers("/seefood/user/login", "/seefood/user/register").permitAll() // ✅ 仅放行登录注册
+                            .requestMatchers("/seefood/image/**").permitAll() // ✅ 图片按哈希寻址，允许<img>直接加载
                             .anyRequest().authenticated(); // ✅ 其他都需要认证
                 })
                 .sessionManagement(session -> session
@@ -3,18 +3,21 @@ package maynooth.seefood.controller;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import maynooth.seefood.AI;
+import maynooth.seefood.event.SeafoodAddedEvent;
 import maynooth.seefood.pojo.AIResponse;
 import maynooth.seefood.pojo.PO.IngredientPO;
 import maynooth.seefood.pojo.PO.RecipePO;
 import maynooth.seefood.pojo.PO.SeafoodPO;
 import maynooth.seefood.pojo.Result;
 import maynooth.seefood.service.AIService;
+import maynooth.seefood.service.ImageStore;
 import maynooth.seefood.mapper.SeafoodMapper;
 import maynooth.seefood.mapper.RecipeMapper;
 import maynooth.seefood.mapper.IngredientMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -47,6 +50,14 @@ public class AIController {
     private IngredientMapper ingredientMapper;
     // 食材数据访问层
 
+    @Autowired
+    private ImageStore imageStore;
+    // 图片存储，库里只保存图片哈希
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    // 事务提交后通知内存目录和索引
+
 //    @Autowired
 //    private AIService aiService;
 //    // AI服务封装类
@@ -87,9 +98,12 @@ public class AIController {
             String[] split = tags.split("/");
             StringJoiner stringJoiner = new StringJoiner(",");
             for (String s : split) {
-                stringJoiner.add(s);
+                if (!s.isBlank()) {
+                    stringJoiner.add(s.trim());
+                }
             }
             seafoodPO.setTags(stringJoiner.toString());
+            seafoodPO.setSeafoodImage(storeImage(seafoodPO.getSeafoodImage()));
             int seafoodRows = seafoodMapper.addSeafood(seafoodPO);
             int seafoodId = seafoodPO.getSeafoodId();
             if (seafoodRows <= 0) {
@@ -106,6 +120,7 @@ public class AIController {
                     System.out.println("------------------------------------------------------");
                     System.out.println(recipe);
                     System.out.println("------------------------------------------------------");
+                    recipe.setRecipeImage(storeImage(recipe.getRecipeImage()));
                     int recipeRows = recipeMapper.addRecipe(recipe);
                     recipeIds.add(recipe.getRecipeId());
                     if (recipeRows <= 0) {
@@ -117,6 +132,8 @@ public class AIController {
             recipeIds.forEach(id -> {
                 recipeMapper.addCooking(seafoodId,id);
             });
+            eventPublisher.publishEvent(new SeafoodAddedEvent(seafoodPO,
+                    recipeList == null ? List.of() : recipeList));
 
 //            // 5. 遍历并保存食材列表
 //            List<IngredientPO> ingredientList = aiResponse.getIngredientPOList();
@@ -157,4 +174,14 @@ public class AIController {
 
         return result;
     }
+
+    /**
+     * 解码一次并写入图片存储，返回图片哈希；空图片保持为空
+     */
+    private String storeImage(String base64) {
+        if (base64 == null || base64.isBlank()) {
+            return base64;
+        }
+        return imageStore.storeBase64(base64);
+    }
 }
\ No newline at end of file
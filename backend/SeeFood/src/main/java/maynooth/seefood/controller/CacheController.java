@@ -0,0 +1,28 @@
+package maynooth.seefood.controller;
+
+import maynooth.seefood.cache.ResponseBytesCache;
+import maynooth.seefood.cache.TwoLevelCacheManager;
+import maynooth.seefood.pojo.Result;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("seefood/cache")
+public class CacheController {
+    @Autowired
+    TwoLevelCacheManager cacheManager;
+    @Autowired
+    ResponseBytesCache responseBytesCache;
+
+    //本地 / Redis 两级缓存以及响应缓存的命中统计
+    @GetMapping("/stats")
+    public Result stats(){
+        Map<String, Object> stats = cacheManager.stats();
+        stats.put("responses", responseBytesCache.stats());
+        return new Result(200,"Success",stats);
+    }
+}
@@ -0,0 +1,74 @@
+package maynooth.seefood.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import maynooth.seefood.pojo.ImageVariant;
+import maynooth.seefood.pojo.StoredImage;
+import maynooth.seefood.service.ImageStore;
+import maynooth.seefood.service.ImageVariantService;
+import maynooth.seefood.utils.FileTransferUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * 图片直接从文件写到 socket，不经过 Result 包装和 Jackson 序列化
+ */
+@RestController
+@RequestMapping("/seefood/image")
+public class ImageController {
+
+    //内容寻址，同一个哈希的内容永远不变
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    //衍生图还没生成好时临时返回原图，不能让客户端永久缓存
+    private static final String REVALIDATE = "no-cache";
+
+    @Autowired
+    private ImageStore imageStore;
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    /**
+     * @param size 可选 s / m，返回对应尺寸的 JPEG 缩略图；不传返回原图
+     */
+    @RequestMapping(value = "/{hash}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void getImage(@PathVariable("hash") String hash,
+                         @RequestParam(value = "size", required = false) String size,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ImageVariant variant;
+        try {
+            variant = ImageVariant.of(size);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        StoredImage image = variant == null ? null : imageVariantService.find(hash, variant);
+        String etag;
+        String cacheControl;
+        if (image != null) {
+            etag = "\"" + image.getHash() + "-" + variant.getCode() + "\"";
+            cacheControl = IMMUTABLE;
+        } else {
+            image = imageStore.find(hash);
+            if (image == null) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            etag = "\"" + image.getHash() + "\"";
+            cacheControl = variant == null ? IMMUTABLE : REVALIDATE;
+        }
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType(image.getContentType());
+        FileTransferUtil.send(request, response, image.getPath(), image.getLength(), etag);
+    }
+}
@@ -1,23 +1,44 @@
 package maynooth.seefood.controller;
 
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import maynooth.seefood.cache.ResponseBytesCache;
+import maynooth.seefood.filter.ConditionalGet;
 import maynooth.seefood.pojo.Result;
 import maynooth.seefood.service.ItemServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.util.List;
+
 @RestController
 @RequestMapping("/seefood/item" )
 public class ItemController {
 
     @Autowired
     ItemServiceImpl itemService;
+    @Autowired
+    ResponseBytesCache responseBytesCache;
 
 
     //see detail
     @GetMapping("/detail/{itemId}")
-    public Result getDetail(@PathVariable("itemId") int itemId){
-        return new Result(200,"success",itemService.getDetail(itemId));
+    @ConditionalGet(ConditionalGet.Scope.ITEM)
+    public void getDetail(@PathVariable("itemId") int itemId,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        responseBytesCache.write("item:detail", itemId,
+                () -> new Result(200,"success",itemService.getDetail(itemId)), request, response);
+    }
+
+    //batch detail for list prefetch, e.g. /details?ids=1,2,3
+    @GetMapping("/details")
+    public Result getDetails(@RequestParam("ids") List<Integer> ids){
+        if (ids.isEmpty() || ids.size() > 50) {
+            return new Result(400,"ids must contain 1-50 items",null);
+        }
+        return new Result(200,"success",itemService.getDetails(ids));
     }
 
 }
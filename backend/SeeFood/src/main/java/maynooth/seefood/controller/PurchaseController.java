@@ -3,16 +3,23 @@ package maynooth.seefood.controller;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import maynooth.seefood.mapper.IngredientMapper;
 import maynooth.seefood.pojo.DTO.CartDTO;
+import maynooth.seefood.pojo.DTO.CartUpdateDTO;
 import maynooth.seefood.pojo.DTO.ICartDTO;
 import maynooth.seefood.pojo.LoginUser;
 import maynooth.seefood.pojo.PO.IngredientPO;
 import maynooth.seefood.pojo.Result;
+import maynooth.seefood.service.CartViewService;
+import maynooth.seefood.service.IdempotencyStore;
 import maynooth.seefood.service.PurchaseServiceImpl;
+import maynooth.seefood.utils.OrderCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.TreeSet;
+import java.util.function.BiFunction;
+import java.util.function.IntSupplier;
 
 @RestController
 @RequestMapping("/seefood/purchase")
@@ -20,6 +27,10 @@ public class PurchaseController {
 
     @Autowired
     PurchaseServiceImpl purchaseService;
+    @Autowired
+    IdempotencyStore idempotencyStore;
+    @Autowired
+    CartViewService cartViewService;
 
 
     @GetMapping("/getcart")
@@ -37,16 +48,40 @@ public class PurchaseController {
         return new Result(200, "Success", iCartDTOS);
     }
 
+    /**
+     * 海鲜和食材购物车一次返回，带每行小计和总价
+     */
+    @GetMapping("/getallcart")
+    public Result getAllCart(@AuthenticationPrincipal LoginUser loginUser) {
+        return new Result(200, "Success", cartViewService.getCart(loginUser));
+    }
+
+    /**
+     * 带 Idempotency-Key 头时同一个 key 只付款一次，重试返回第一次的结果
+     */
     @PostMapping("/gotopaycart")
-    public Result goToPayCart(@AuthenticationPrincipal LoginUser loginUser, @RequestBody List<Integer> cartIds) {
-        return new Result(200, "Success", purchaseService.goToPayCart(loginUser, cartIds));
+    public Result goToPayCart(@AuthenticationPrincipal LoginUser loginUser, @RequestBody List<Integer> cartIds,
+                              @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return pay(loginUser, "cart", cartIds, idempotencyKey, () -> purchaseService.goToPayCart(loginUser, cartIds));
     }
 
     @PostMapping("/gotopayicart")
-    public Result goToPayICart(@AuthenticationPrincipal LoginUser loginUser,  @RequestBody List<Integer> iCartIds) {
-        return new Result(200, "Success", purchaseService.goToPayICart(loginUser,iCartIds));
+    public Result goToPayICart(@AuthenticationPrincipal LoginUser loginUser,  @RequestBody List<Integer> iCartIds,
+                               @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return pay(loginUser, "icart", iCartIds, idempotencyKey, () -> purchaseService.goToPayICart(loginUser, iCartIds));
     }
 
+    private Result pay(LoginUser loginUser, String scope, List<Integer> ids, String idempotencyKey, IntSupplier payment) {
+        if (idempotencyKey == null) {
+            return new Result(200, "Success", payment.getAsInt());
+        }
+        if (!IdempotencyStore.isValidKey(idempotencyKey)) {
+            return new Result(400, "Idempotency-Key must be 1-64 letters, digits or -_:.", null);
+        }
+        //顺序和重复不影响付款结果，指纹用去重排序后的 ID
+        return idempotencyStore.execute(loginUser.getUserId(), scope, idempotencyKey,
+                new TreeSet<>(ids).toString(), payment);
+    }
 
     @GetMapping("/getorder")
     public Result gatOrder(@AuthenticationPrincipal LoginUser loginUser) throws JsonProcessingException {
@@ -58,19 +93,61 @@ public class PurchaseController {
         return new Result(200, "Success", purchaseService.selectPayedICart(loginUser));
     }
 
+    /**
+     * 订单历史按付款时间倒序翻页，第一页不带 cursor，之后带上一页返回的 nextCursor
+     */
+    @GetMapping("/getorder/page")
+    public Result getOrderPage(@AuthenticationPrincipal LoginUser loginUser,
+                               @RequestParam(value = "cursor", required = false) String cursor,
+                               @RequestParam(value = "size", defaultValue = "20") int size) {
+        return orderPage(cursor, size, (after, n) -> purchaseService.selectPayedCartPage(loginUser, after, n));
+    }
+
+    @GetMapping("/getingredientorder/page")
+    public Result getIngredientOrderPage(@AuthenticationPrincipal LoginUser loginUser,
+                                         @RequestParam(value = "cursor", required = false) String cursor,
+                                         @RequestParam(value = "size", defaultValue = "20") int size) {
+        return orderPage(cursor, size, (after, n) -> purchaseService.selectPayedICartPage(loginUser, after, n));
+    }
+
+    //两个订单历史接口共用的游标解码和 size 检查
+    private static Result orderPage(String cursor, int size, BiFunction<OrderCursor, Integer, Object> query) {
+        OrderCursor after;
+        try {
+            after = OrderCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return new Result(400, "invalid cursor", null);
+        }
+        if (size <= 0 || size > 100) {
+            return new Result(400, "size must be 1-100", null);
+        }
+        return new Result(200, "Success", query.apply(after, size));
+    }
+
     @PostMapping("/add/{seafoodId}")
     public Result addToCart(@AuthenticationPrincipal LoginUser loginUser, @PathVariable("seafoodId") int seafoodId) {
         return new Result(200, "Success", purchaseService.addToCart(loginUser, seafoodId));
     }
 
     @PutMapping("/updatecart/{cartId}/{count}")
-    public Result updateCart(@PathVariable int cartId, @PathVariable int count) {
-        return new Result(200,"Success",purchaseService.updateCount(cartId,count));
+    public Result updateCart(@AuthenticationPrincipal LoginUser loginUser, @PathVariable int cartId, @PathVariable int count) {
+        return new Result(200,"Success",purchaseService.updateCount(loginUser,cartId,count));
     }
 
     @PutMapping("/update/{iCartId}/{count}")
-    public Result updateICart(@PathVariable int iCartId,@PathVariable int count){
-        return new Result(200,"Success",purchaseService.updateIngredientCart(iCartId,count));
+    public Result updateICart(@AuthenticationPrincipal LoginUser loginUser, @PathVariable int iCartId,@PathVariable int count){
+        return new Result(200,"Success",purchaseService.updateIngredientCart(loginUser,iCartId,count));
+    }
+
+    /**
+     * 一次改多行购物车，body 为 [{"cartId":1,"count":2},{"icartId":5,"count":0}]，count 为 0 时删除
+     */
+    @PutMapping("/updatecarts")
+    public Result updateCarts(@AuthenticationPrincipal LoginUser loginUser, @RequestBody List<CartUpdateDTO> updates) {
+        if (updates.isEmpty() || updates.size() > 200) {
+            return new Result(400, "1-200 updates per request", null);
+        }
+        return new Result(200, "Success", purchaseService.updateCarts(loginUser, updates));
     }
 
     @PostMapping("/addingredienttocart")
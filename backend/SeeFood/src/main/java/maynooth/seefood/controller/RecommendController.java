@@ -1,6 +1,7 @@
 package maynooth.seefood.controller;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import maynooth.seefood.pojo.DTO.SeafoodSummaryDTO;
 import maynooth.seefood.pojo.LoginUser;
 import maynooth.seefood.pojo.PO.RatingPO;
 import maynooth.seefood.pojo.PO.SeafoodPO;
@@ -36,8 +37,19 @@ public class RecommendController {
     }
 
     @GetMapping("/getpersonalrecommendation")
-    public Result getPersonalRecommend(@AuthenticationPrincipal LoginUser loginUser) throws JsonProcessingException {
+    public Result getPersonalRecommend(@AuthenticationPrincipal LoginUser loginUser,
+                                       @RequestParam(defaultValue = "full") String view) throws JsonProcessingException {
         long userId = loginUser.getUserId();
+        if ("summary".equals(view)) {
+            List<SeafoodSummaryDTO> summaries = recommendService.recommendSummaries(userId, 50);
+            if (summaries.size() < 3) {
+                return new Result(200, "Success", seafoodService.getTopSummaries());
+            }
+            return new Result(200, "Success", summaries);
+        }
+        if (!"full".equals(view)) {
+            return new Result(400, "view must be full or summary", null);
+        }
         List<SeafoodPO> seafoodPOS = recommendService.recommendItems(userId, 50);
         if (seafoodPOS.size() < 3) {
             return new Result(200, "Success",seafoodService.getTop());
@@ -1,12 +1,24 @@
 package maynooth.seefood.controller;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import maynooth.seefood.cache.ResponseBytesCache;
+import maynooth.seefood.filter.ConditionalGet;
 import maynooth.seefood.pojo.Result;
 import maynooth.seefood.service.SeafoodServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.List;
 
 
 
@@ -15,6 +27,10 @@ import java.time.LocalDate;
 public class SeafoodController {
     @Autowired
     SeafoodServiceImpl seafoodService;
+    @Autowired
+    ResponseBytesCache responseBytesCache;
+    @Autowired
+    ObjectMapper objectMapper;
 
     //update views for the seefood
     @PutMapping("/views/{seafoodId}")
@@ -22,15 +38,63 @@ public class SeafoodController {
         return new Result(200,"success",seafoodService.putViews(seafoodId));
     }
 
+    //命中时直接写出缓存好的 JSON 字节；view=summary 只返回 id、名称、图片和价格
     @GetMapping("/getPopular")
-    public Result getPopular(){
-        return new Result(200,"Successful",seafoodService.getTop());
+    @ConditionalGet(ConditionalGet.Scope.CATALOG)
+    public void getPopular(@RequestParam(defaultValue = "full") String view,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+        switch (view) {
+            case "full" -> responseBytesCache.write("seafood:top", "popular",
+                    () -> new Result(200,"Successful",seafoodService.getTop()), request, response);
+            case "summary" -> responseBytesCache.write("seafood:top", "popular:summary",
+                    () -> new Result(200,"Successful",seafoodService.getTopSummaries()), request, response);
+            default -> responseBytesCache.write(new Result(400,"view must be full or summary",null), request, response);
+        }
+    }
+
+    //全量导出用：边查边写，不经过缓存，服务端内存占用与列表长度无关
+    //同时进行的导出超过上限时直接返回 503，不排队等连接
+    @GetMapping("/getPopular/stream")
+    @ConditionalGet(ConditionalGet.Scope.CATALOG)
+    public ResponseEntity<StreamingResponseBody> streamPopular() throws IOException {
+        if (!seafoodService.tryStartStream()) {
+            byte[] body = objectMapper.writeValueAsBytes(new Result(503,"Too many exports in progress, retry later",null));
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> out.write(body));
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> {
+                    try {
+                        seafoodService.writeTop(out);
+                    } finally {
+                        seafoodService.endStream();
+                    }
+                });
     }
 
     @GetMapping("/getSeason")
-    public Result getBySeason(){
+    @ConditionalGet(ConditionalGet.Scope.SEASON)
+    public void getBySeason(HttpServletRequest request, HttpServletResponse response) throws IOException {
         int month = LocalDate.now().getMonthValue();
-        return new Result(200,"Success",seafoodService.getSeafoodsBySeason(month));
+        responseBytesCache.write(ResponseBytesCache.SEASON, month,
+                () -> new Result(200,"Success",seafoodService.getSeafoodsBySeason(month)), request, response);
+    }
+
+    //e.g. /getByTags?all=FISH&any=salmon,tuna&none=farmed&page=0&size=20
+    @GetMapping("/getByTags")
+    public Result getByTags(@RequestParam(value = "all", required = false) List<String> all,
+                            @RequestParam(value = "any", required = false) List<String> any,
+                            @RequestParam(value = "none", required = false) List<String> none,
+                            @RequestParam(value = "page", defaultValue = "0") int page,
+                            @RequestParam(value = "size", defaultValue = "20") int size){
+        if (page < 0 || size <= 0 || size > 100) {
+            return new Result(400,"page must be >= 0 and size 1-100",null);
+        }
+        return new Result(200,"Success",seafoodService.getSeafoodsByTags(
+                all == null ? List.of() : all, any == null ? List.of() : any, none == null ? List.of() : none, page, size));
     }
 
 //    @GetMapping("/getPersonal")
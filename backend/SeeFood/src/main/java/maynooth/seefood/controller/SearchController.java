@@ -0,0 +1,48 @@
+package maynooth.seefood.controller;
+
+import maynooth.seefood.index.AutocompleteIndex;
+import maynooth.seefood.index.SearchIndex;
+import maynooth.seefood.pojo.Result;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Set;
+
+@RestController
+@RequestMapping("seefood/search")
+public class SearchController {
+
+    private static final Set<String> TYPES = Set.of(SearchIndex.SEAFOOD, SearchIndex.RECIPE, SearchIndex.INGREDIENT);
+
+    @Autowired
+    SearchIndex searchIndex;
+    @Autowired
+    AutocompleteIndex autocompleteIndex;
+
+    //e.g. /seefood/search?q=三文鱼&type=recipe&limit=10
+    @GetMapping
+    public Result search(@RequestParam("q") String q,
+                         @RequestParam(value = "type", required = false) String type,
+                         @RequestParam(value = "limit", defaultValue = "10") int limit){
+        if (type != null && !TYPES.contains(type)) {
+            return new Result(400,"type must be one of " + TYPES,null);
+        }
+        if (limit <= 0 || limit > 50) {
+            return new Result(400,"limit must be 1-50",null);
+        }
+        return new Result(200,"Success",searchIndex.search(q, type, limit));
+    }
+
+    //输入时联想，e.g. /seefood/search/suggest?prefix=sal
+    @GetMapping("/suggest")
+    public Result suggest(@RequestParam("prefix") String prefix,
+                          @RequestParam(value = "limit", defaultValue = "8") int limit){
+        if (limit <= 0 || limit > 20) {
+            return new Result(400,"limit must be 1-20",null);
+        }
+        return new Result(200,"Success",autocompleteIndex.suggest(prefix, limit));
+    }
+}
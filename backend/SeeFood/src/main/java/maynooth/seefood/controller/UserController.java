@@ -92,10 +92,17 @@ public class UserController {
     }
 
     @GetMapping("/getLike")
-    public Result getLike(@AuthenticationPrincipal LoginUser loginUser) {
+    public Result getLike(@AuthenticationPrincipal LoginUser loginUser,
+                          @RequestParam(defaultValue = "full") String view) {
         // loginUser 现在一定不为 null（因为过滤器已经保证）
         long userId = loginUser.getUserId();
         // 直接拿 ID
+        if ("summary".equals(view)) {
+            return new Result(200, "Success", userService.getLikeSummaries(userId));
+        }
+        if (!"full".equals(view)) {
+            return new Result(400, "view must be full or summary", null);
+        }
         List<SeafoodPO> likes = userService.getLikes(userId);
         return new Result(200, "Success", likes);
     }
@@ -0,0 +1,14 @@
+package maynooth.seefood.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 内存海鲜目录及其索引已更新（全量刷新或新增了海鲜）
+ */
+@Data
+@AllArgsConstructor
+public class CatalogChangedEvent {
+    //新增的海鲜，全量刷新时为 null
+    private Integer seafoodId;
+}
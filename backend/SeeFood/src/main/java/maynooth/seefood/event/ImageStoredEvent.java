@@ -0,0 +1,13 @@
+package maynooth.seefood.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 一张新图片第一次写入图片存储
+ */
+@Data
+@AllArgsConstructor
+public class ImageStoredEvent {
+    private String hash;
+}
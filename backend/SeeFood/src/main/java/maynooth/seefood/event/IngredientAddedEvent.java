@@ -0,0 +1,14 @@
+package maynooth.seefood.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import maynooth.seefood.pojo.PO.IngredientPO;
+
+/**
+ * 新食材已写入 ingredient 表
+ */
+@Data
+@AllArgsConstructor
+public class IngredientAddedEvent {
+    private IngredientPO ingredient;
+}
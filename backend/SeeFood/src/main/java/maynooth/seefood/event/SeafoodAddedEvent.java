@@ -0,0 +1,18 @@
+package maynooth.seefood.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import maynooth.seefood.pojo.PO.RecipePO;
+import maynooth.seefood.pojo.PO.SeafoodPO;
+
+import java.util.List;
+
+/**
+ * 新海鲜及其菜谱已写入数据库
+ */
+@Data
+@AllArgsConstructor
+public class SeafoodAddedEvent {
+    private SeafoodPO seafood;
+    private List<RecipePO> recipes;
+}
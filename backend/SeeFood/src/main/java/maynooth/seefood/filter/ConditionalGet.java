@@ -0,0 +1,29 @@
+package maynooth.seefood.filter;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标在 GET 接口上，由 {@link ConditionalGetInterceptor} 按内容版本生成 ETag / Last-Modified，
+ * 请求带的 If-None-Match / If-Modified-Since 与当前版本一致时直接返回 304，不进入 controller。
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConditionalGet {
+
+    Scope value();
+
+    //scope 为 ITEM 时，海鲜 id 所在的路径变量名
+    String idVariable() default "itemId";
+
+    enum Scope {
+        //海鲜目录整体，如热门列表
+        CATALOG,
+        //目录整体，且内容随当前月份变化
+        SEASON,
+        //单个海鲜，版本取自路径变量
+        ITEM
+    }
+}
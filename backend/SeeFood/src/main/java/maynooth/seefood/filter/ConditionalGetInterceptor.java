@@ -0,0 +1,104 @@
+package maynooth.seefood.filter;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import maynooth.seefood.cache.ContentVersions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * 处理 {@link ConditionalGet}：只读内存里的版本号，304 时不查库、不查 Redis、不做序列化。
+ * ETag 在 controller 执行前就写进响应头；执行期间内容若有变化，客户端下次带旧 ETag 来会拿到新内容。
+ */
+@Component
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    private ContentVersions contentVersions;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod method) || !"GET".equals(request.getMethod())) {
+            return true;
+        }
+        ConditionalGet conditional = method.getMethodAnnotation(ConditionalGet.class);
+        if (conditional == null) {
+            return true;
+        }
+        ContentVersions.Version version;
+        String tag;
+        switch (conditional.value()) {
+            case ITEM -> {
+                Integer id = itemId(request, conditional.idVariable());
+                if (id == null) {
+                    return true;
+                }
+                version = contentVersions.item(id);
+                tag = "i" + id + "-" + contentVersions.epoch() + "-" + version.version();
+            }
+            case SEASON -> {
+                version = contentVersions.catalog();
+                tag = "s" + LocalDate.now().getMonthValue() + "-" + contentVersions.epoch() + "-" + version.version();
+            }
+            default -> {
+                version = contentVersions.catalog();
+                tag = "c-" + contentVersions.epoch() + "-" + version.version();
+            }
+        }
+        //同一内容有 gzip 和不压缩两种表示，用弱 ETag
+        String etag = "W/\"" + tag + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, version.modifiedMillis() / 1000 * 1000);
+        //客户端可以缓存，但每次都要带上 ETag 来验证
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        if (notModified(request, etag, version.modifiedMillis())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean notModified(HttpServletRequest request, String etag, long modifiedMillis) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            // 有 If-None-Match 时忽略 If-Modified-Since，按弱比较
+            String opaque = etag.substring(2);
+            for (String candidate : ifNoneMatch.split(",")) {
+                String value = candidate.trim();
+                if (value.equals("*") || value.equals(etag) || value.equals(opaque)
+                        || (value.startsWith("W/") && value.substring(2).equals(opaque))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return ifModifiedSince != -1 && modifiedMillis / 1000 * 1000 <= ifModifiedSince;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Integer itemId(HttpServletRequest request, String variable) {
+        Map<String, String> variables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables == null || variables.get(variable) == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(variables.get(variable));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
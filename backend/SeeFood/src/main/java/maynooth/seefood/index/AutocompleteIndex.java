@@ -0,0 +1,159 @@
+package maynooth.seefood.index;
+
+import lombok.extern.slf4j.Slf4j;
+import maynooth.seefood.event.IngredientAddedEvent;
+import maynooth.seefood.mapper.IngredientMapper;
+import maynooth.seefood.pojo.DTO.SuggestionDTO;
+import maynooth.seefood.pojo.PO.SeafoodPO;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+
+/**
+ * 前缀自动补全：海鲜名和食材名的每个词首（中文为每个字）都作为一个 key，
+ * 所有 key 排序后放进一个数组，查询时二分定位前缀区间，按热度取前 limit 个。
+ * 每次变更都生成新快照整体替换，读操作无锁。
+ */
+@Component
+@Slf4j
+public class AutocompleteIndex implements CatalogIndex {
+
+    private static final String SEAFOOD = "seafood";
+    private static final String INGREDIENT = "ingredient";
+
+    private static final Comparator<SuggestionDTO> BY_VIEWS = Comparator.comparingInt(SuggestionDTO::getViews)
+            .thenComparing(SuggestionDTO::getName, Comparator.reverseOrder());
+
+    private final IngredientMapper ingredientMapper;
+
+    private final Map<Integer, SuggestionDTO> seafoods = new HashMap<>();
+    private final Map<Integer, SuggestionDTO> ingredients = new HashMap<>();
+    private volatile Snapshot snapshot = new Snapshot(new String[0], new SuggestionDTO[0]);
+
+    public AutocompleteIndex(IngredientMapper ingredientMapper) {
+        this.ingredientMapper = ingredientMapper;
+    }
+
+    @Override
+    public synchronized void rebuild(Collection<SeafoodPO> all) {
+        seafoods.clear();
+        all.forEach(this::putSeafood);
+        try {
+            List<SuggestionDTO> loaded = ingredientMapper.selectIngredientSuggestions();
+            ingredients.clear();
+            loaded.forEach(suggestion -> ingredients.put(suggestion.getId(), suggestion));
+        } catch (Exception e) {
+            log.warn("Autocomplete loaded without ingredients: {}", e.toString());
+        }
+        publish();
+    }
+
+    @Override
+    public synchronized void add(SeafoodPO seafood) {
+        putSeafood(seafood);
+        publish();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onIngredientAdded(IngredientAddedEvent event) {
+        Integer id = event.getIngredient().getIngredientId();
+        String name = event.getIngredient().getIngredientName();
+        if (id != null && name != null && !ingredients.containsKey(id)) {
+            ingredients.put(id, new SuggestionDTO(INGREDIENT, id, name, 0));
+            publish();
+        }
+    }
+
+    /**
+     * @return 名称中有词以 prefix 开头的海鲜和食材，热度高的在前
+     */
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Snapshot current = snapshot;
+        int i = lowerBound(current.keys, key);
+        // 同一个名称可能有多个词命中，按对象去重
+        Set<SuggestionDTO> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        PriorityQueue<SuggestionDTO> top = new PriorityQueue<>(limit + 1, BY_VIEWS);
+        for (; i < current.keys.length && current.keys[i].startsWith(key); i++) {
+            SuggestionDTO suggestion = current.targets[i];
+            if (!seen.add(suggestion)) {
+                continue;
+            }
+            top.offer(suggestion);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<SuggestionDTO> result = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            result.add(top.poll());
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private void putSeafood(SeafoodPO seafood) {
+        if (seafood.getSeafoodName() != null) {
+            seafoods.put(seafood.getSeafoodId(),
+                    new SuggestionDTO(SEAFOOD, seafood.getSeafoodId(), seafood.getSeafoodName(), seafood.getViews()));
+        }
+    }
+
+    private void publish() {
+        List<Map.Entry<String, SuggestionDTO>> entries = new ArrayList<>();
+        seafoods.values().forEach(s -> keys(s.getName()).forEach(k -> entries.add(Map.entry(k, s))));
+        ingredients.values().forEach(s -> keys(s.getName()).forEach(k -> entries.add(Map.entry(k, s))));
+        entries.sort(Map.Entry.comparingByKey());
+        String[] keys = new String[entries.size()];
+        SuggestionDTO[] targets = new SuggestionDTO[entries.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = entries.get(i).getKey();
+            targets[i] = entries.get(i).getValue();
+        }
+        snapshot = new Snapshot(keys, targets);
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 名称从每个词首开始的后缀，"Atlantic Salmon" -> "atlantic salmon", "salmon"；中文每个字都算词首
+     */
+    static Set<String> keys(String name) {
+        String normalized = normalize(name);
+        Set<String> keys = new LinkedHashSet<>();
+        boolean boundary = true;
+        for (int i = 0; i < normalized.length(); ) {
+            int cp = normalized.codePointAt(i);
+            boolean cjk = Tokenizer.isCjk(cp);
+            if (Character.isLetterOrDigit(cp) && (boundary || cjk)) {
+                keys.add(normalized.substring(i));
+            }
+            boundary = !Character.isLetterOrDigit(cp) || cjk;
+            i += Character.charCount(cp);
+        }
+        return keys;
+    }
+
+    private static int lowerBound(String[] keys, String key) {
+        int lo = 0;
+        int hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private record Snapshot(String[] keys, SuggestionDTO[] targets) {
+    }
+}
@@ -0,0 +1,15 @@
+package maynooth.seefood.index;
+
+import maynooth.seefood.pojo.PO.SeafoodPO;
+
+import java.util.Collection;
+
+/**
+ * 挂在 {@link SeafoodCatalog} 上的内存索引，全量加载时 rebuild，新增海鲜时 add
+ */
+public interface CatalogIndex {
+
+    void rebuild(Collection<SeafoodPO> seafoods);
+
+    void add(SeafoodPO seafood);
+}
@@ -0,0 +1,195 @@
+package maynooth.seefood.index;
+
+import lombok.extern.slf4j.Slf4j;
+import maynooth.seefood.event.IngredientAddedEvent;
+import maynooth.seefood.mapper.IngredientMapper;
+import maynooth.seefood.pojo.PO.IngredientPO;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存中的食材字典：按名称和 ID 查食材（价格、图标），启动时全量加载，新增食材时更新，
+ * 并定期全量刷新（同步其它节点新增的食材）。返回的是共享对象，调用方不能修改。
+ * <p>
+ * 名称按去掉首尾空格、忽略大小写比较，与 ingredient 表上 uk_ingredient_name 的排序规则一致。
+ */
+@Component
+@Slf4j
+public class IngredientDictionary {
+
+    private final IngredientMapper ingredientMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    //新食材在独立事务里插入并提交，其它请求拿到 ID 时这行一定已经可见
+    private final TransactionTemplate insertTransaction;
+
+    private volatile Map<String, IngredientPO> byName = new ConcurrentHashMap<>();
+    private volatile Map<Integer, IngredientPO> byId = new ConcurrentHashMap<>();
+    //同名食材的首次插入，本节点只有一个线程执行，其余等它的结果
+    private final Map<String, CompletableFuture<IngredientPO>> inserting = new ConcurrentHashMap<>();
+    private final Object lock = new Object();
+    private volatile boolean ready;
+
+    public IngredientDictionary(IngredientMapper ingredientMapper, ApplicationEventPublisher eventPublisher,
+                                PlatformTransactionManager transactionManager) {
+        this.ingredientMapper = ingredientMapper;
+        this.eventPublisher = eventPublisher;
+        this.insertTransaction = new TransactionTemplate(transactionManager);
+        this.insertTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${seefood.catalog.refresh-millis:300000}",
+            initialDelayString = "${seefood.catalog.refresh-millis:300000}")
+    public void reload() {
+        List<IngredientPO> loaded;
+        try {
+            loaded = ingredientMapper.selectAllIngredients();
+        } catch (Exception e) {
+            log.warn("Ingredient dictionary load failed, falling back to database queries: {}", e.toString());
+            return;
+        }
+        synchronized (lock) {
+            Map<String, IngredientPO> names = new ConcurrentHashMap<>();
+            Map<Integer, IngredientPO> ids = new ConcurrentHashMap<>();
+            loaded.forEach(ingredient -> {
+                names.put(key(ingredient.getIngredientName()), ingredient);
+                ids.put(ingredient.getIngredientId(), ingredient);
+            });
+            // 查询期间新增的食材可能不在结果里，保留下来
+            byId.values().forEach(ingredient -> {
+                if (ids.putIfAbsent(ingredient.getIngredientId(), ingredient) == null) {
+                    names.putIfAbsent(key(ingredient.getIngredientName()), ingredient);
+                }
+            });
+            byName = names;
+            byId = ids;
+            ready = true;
+        }
+        log.info("Ingredient dictionary loaded: {} ingredients", loaded.size());
+    }
+
+    //未加载成功时调用方应回退到数据库
+    public boolean isReady() {
+        return ready;
+    }
+
+    public IngredientPO get(int ingredientId) {
+        return byId.get(ingredientId);
+    }
+
+    /**
+     * 批量按 ID 取，字典里没有的用一次查询补上；不存在的食材不在结果里
+     */
+    public Map<Integer, IngredientPO> getAll(Collection<Integer> ingredientIds) {
+        Map<Integer, IngredientPO> found = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer ingredientId : ingredientIds) {
+            IngredientPO ingredient = byId.get(ingredientId);
+            if (ingredient != null) {
+                found.put(ingredientId, ingredient);
+            } else {
+                missing.add(ingredientId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            ingredientMapper.selectIngredientsByIds(missing).forEach(ingredient -> {
+                put(ingredient);
+                found.put(ingredient.getIngredientId(), ingredient);
+            });
+        }
+        return found;
+    }
+
+    public IngredientPO get(String ingredientName) {
+        return ingredientName == null ? null : byName.get(key(ingredientName));
+    }
+
+    /**
+     * 按名称取食材，没有就插入一条；同名的并发首次插入合并为一次。
+     * 其它节点已经插入过的，靠唯一键冲突后再查出来。
+     *
+     * @param candidate 名称不存在时插入的内容
+     * @return 已存在或刚插入的食材，带 ingredientId
+     */
+    public IngredientPO intern(IngredientPO candidate) {
+        String key = key(candidate.getIngredientName());
+        IngredientPO known = byName.get(key);
+        if (known != null) {
+            return known;
+        }
+        CompletableFuture<IngredientPO> mine = new CompletableFuture<>();
+        CompletableFuture<IngredientPO> running = inserting.putIfAbsent(key, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            IngredientPO stored = insertOrLoad(candidate);
+            mine.complete(stored);
+            return stored;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inserting.remove(key, mine);
+        }
+    }
+
+    private IngredientPO insertOrLoad(IngredientPO candidate) {
+        IngredientPO ingredient = new IngredientPO(null, candidate.getIngredientName().trim(),
+                candidate.getIngredientPrice(), candidate.getIngredientPic());
+        boolean inserted = Boolean.TRUE.equals(insertTransaction.execute(status -> {
+            try {
+                ingredientMapper.addIngredient(ingredient);
+                return true;
+            } catch (DuplicateKeyException e) {
+                return false;
+            }
+        }));
+        IngredientPO stored = inserted ? ingredient : ingredientMapper.selectIngredientByName(ingredient.getIngredientName());
+        if (stored == null) {
+            throw new IllegalStateException("Ingredient " + ingredient.getIngredientName() + " was not found after a duplicate key");
+        }
+        put(stored);
+        if (inserted) {
+            log.info("New ingredient {} ({})", stored.getIngredientName(), stored.getIngredientId());
+            eventPublisher.publishEvent(new IngredientAddedEvent(stored));
+        }
+        return stored;
+    }
+
+    private void put(IngredientPO ingredient) {
+        synchronized (lock) {
+            byId.put(ingredient.getIngredientId(), ingredient);
+            byName.put(key(ingredient.getIngredientName()), ingredient);
+        }
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,143 @@
+package maynooth.seefood.index;
+
+import lombok.extern.slf4j.Slf4j;
+import maynooth.seefood.event.CatalogChangedEvent;
+import maynooth.seefood.event.SeafoodAddedEvent;
+import maynooth.seefood.mapper.SeafoodMapper;
+import maynooth.seefood.pojo.PO.SeafoodPO;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存中的海鲜目录：启动时从库里全量加载，新增海鲜提交后增量更新，
+ * 并定期全量刷新（顺便同步其它节点新增的海鲜）。各个 {@link CatalogIndex} 跟随目录一起更新。
+ */
+@Component
+@Slf4j
+public class SeafoodCatalog {
+
+    private final SeafoodMapper seafoodMapper;
+    private final List<CatalogIndex> indexes;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Object lock = new Object();
+    //同一时间只有一个全量加载
+    private final Object reloadLock = new Object();
+    private volatile Map<Integer, SeafoodPO> seafoods = new ConcurrentHashMap<>();
+    //全量加载期间通过 add 新增的海鲜，查询结果里可能没有它们；不在加载时为 null
+    private Map<Integer, SeafoodPO> addedDuringLoad;
+    private volatile boolean ready;
+
+    public SeafoodCatalog(SeafoodMapper seafoodMapper, List<CatalogIndex> indexes,
+                          ApplicationEventPublisher eventPublisher) {
+        this.seafoodMapper = seafoodMapper;
+        this.indexes = indexes;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${seefood.catalog.refresh-millis:300000}",
+            initialDelayString = "${seefood.catalog.refresh-millis:300000}")
+    public void reload() {
+        synchronized (reloadLock) {
+            reloadOnce();
+        }
+    }
+
+    private void reloadOnce() {
+        synchronized (lock) {
+            addedDuringLoad = new HashMap<>();
+        }
+        List<SeafoodPO> loaded;
+        try {
+            loaded = seafoodMapper.getSeafoodInPopularity();
+        } catch (Exception e) {
+            synchronized (lock) {
+                addedDuringLoad = null;
+            }
+            log.warn("Seafood catalog load failed, falling back to database queries: {}", e.toString());
+            return;
+        }
+        boolean changed;
+        synchronized (lock) {
+            Map<Integer, SeafoodPO> map = new ConcurrentHashMap<>();
+            List<SeafoodPO> all = new ArrayList<>(loaded);
+            loaded.forEach(seafood -> map.put(seafood.getSeafoodId(), seafood));
+            // 只保留查询期间提交的新增海鲜；其它不在结果里的已从库里删除，随之移出目录和索引
+            addedDuringLoad.values().forEach(seafood -> {
+                if (map.putIfAbsent(seafood.getSeafoodId(), seafood) == null) {
+                    all.add(seafood);
+                }
+            });
+            addedDuringLoad = null;
+            // 内容没变时不重建索引、不发事件，免得每次定时刷新都让 ETag 和响应缓存失效
+            changed = !ready || !map.equals(seafoods);
+            if (changed) {
+                indexes.forEach(index -> index.rebuild(all));
+                seafoods = map;
+                ready = true;
+            }
+        }
+        if (!changed) {
+            log.debug("Seafood catalog unchanged: {} seafoods", loaded.size());
+            return;
+        }
+        eventPublisher.publishEvent(new CatalogChangedEvent(null));
+        log.info("Seafood catalog loaded: {} seafoods", loaded.size());
+    }
+
+    //事务提交后才更新，回滚的海鲜不会进入目录
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSeafoodAdded(SeafoodAddedEvent event) {
+        add(event.getSeafood());
+    }
+
+    public void add(SeafoodPO seafood) {
+        synchronized (lock) {
+            seafoods.put(seafood.getSeafoodId(), seafood);
+            if (addedDuringLoad != null) {
+                addedDuringLoad.put(seafood.getSeafoodId(), seafood);
+            }
+            indexes.forEach(index -> index.add(seafood));
+        }
+        eventPublisher.publishEvent(new CatalogChangedEvent(seafood.getSeafoodId()));
+    }
+
+    public void incrementViews(int seafoodId) {
+        SeafoodPO seafood = seafoods.get(seafoodId);
+        if (seafood != null) {
+            synchronized (seafood) {
+                seafood.setViews(seafood.getViews() + 1);
+            }
+        }
+    }
+
+    //未加载成功时调用方应回退到数据库
+    public boolean isReady() {
+        return ready;
+    }
+
+    public SeafoodPO get(int seafoodId) {
+        return seafoods.get(seafoodId);
+    }
+
+    public Collection<SeafoodPO> all() {
+        return Collections.unmodifiableCollection(seafoods.values());
+    }
+}
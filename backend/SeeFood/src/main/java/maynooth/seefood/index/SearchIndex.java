@@ -0,0 +1,231 @@
+package maynooth.seefood.index;
+
+import lombok.extern.slf4j.Slf4j;
+import maynooth.seefood.event.IngredientAddedEvent;
+import maynooth.seefood.event.SeafoodAddedEvent;
+import maynooth.seefood.mapper.IngredientMapper;
+import maynooth.seefood.mapper.RecipeMapper;
+import maynooth.seefood.pojo.DTO.SearchHitDTO;
+import maynooth.seefood.pojo.PO.CookingPO;
+import maynooth.seefood.pojo.PO.IngredientPO;
+import maynooth.seefood.pojo.PO.RecipePO;
+import maynooth.seefood.pojo.PO.SeafoodPO;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 全文检索：覆盖海鲜名称/简介、菜谱名称/简介和食材名称的内存倒排索引，BM25 打分。
+ * 倒排表是按文档号递增的 int 数组，新增文档直接追加。
+ */
+@Component
+@Slf4j
+public class SearchIndex implements CatalogIndex {
+
+    public static final String SEAFOOD = "seafood";
+    public static final String RECIPE = "recipe";
+    public static final String INGREDIENT = "ingredient";
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    //名称里的词按 2 次计
+    private static final int NAME_BOOST = 2;
+
+    private final RecipeMapper recipeMapper;
+    private final IngredientMapper ingredientMapper;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Segment segment = new Segment();
+
+    public SearchIndex(RecipeMapper recipeMapper, IngredientMapper ingredientMapper) {
+        this.recipeMapper = recipeMapper;
+        this.ingredientMapper = ingredientMapper;
+    }
+
+    @Override
+    public void rebuild(Collection<SeafoodPO> seafoods) {
+        Segment next = new Segment();
+        seafoods.forEach(seafood -> next.addSeafood(seafood));
+        try {
+            Map<Integer, Integer> seafoodOfRecipe = new HashMap<>();
+            for (CookingPO cooking : recipeMapper.getAllCookings()) {
+                seafoodOfRecipe.putIfAbsent(cooking.getRecipeId(), cooking.getSeafoodId());
+            }
+            for (RecipePO recipe : recipeMapper.getAllRecipes()) {
+                next.addRecipe(recipe, seafoodOfRecipe.get(recipe.getRecipeId()));
+            }
+            ingredientMapper.selectAllIngredients().forEach(next::addIngredient);
+        } catch (Exception e) {
+            log.warn("Search index loaded without recipes and ingredients: {}", e.toString());
+        }
+        lock.writeLock().lock();
+        try {
+            segment = next;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Search index built: {} documents, {} terms", next.docCount, next.postings.size());
+    }
+
+    @Override
+    public void add(SeafoodPO seafood) {
+        lock.writeLock().lock();
+        try {
+            segment.addSeafood(seafood);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSeafoodAdded(SeafoodAddedEvent event) {
+        lock.writeLock().lock();
+        try {
+            event.getRecipes().forEach(recipe -> segment.addRecipe(recipe, event.getSeafood().getSeafoodId()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIngredientAdded(IngredientAddedEvent event) {
+        lock.writeLock().lock();
+        try {
+            segment.addIngredient(event.getIngredient());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param type 为 null 时不限类型
+     */
+    public List<SearchHitDTO> search(String query, String type, int limit) {
+        List<String> terms = Tokenizer.tokenize(query).stream().distinct().toList();
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return segment.search(terms, type, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 一个完整的索引；全量重建时新建一个再整体替换
+     */
+    private static class Segment {
+        private final Map<String, Postings> postings = new HashMap<>();
+        private String[] types = new String[64];
+        private int[] refs = new int[64];
+        private Integer[] seafoodIds = new Integer[64];
+        private String[] titles = new String[64];
+        private int[] lengths = new int[64];
+        private int docCount;
+        private long totalLength;
+
+        void addSeafood(SeafoodPO seafood) {
+            addDoc(SEAFOOD, seafood.getSeafoodId(), null, seafood.getSeafoodName(), seafood.getSeafoodBrief());
+        }
+
+        void addRecipe(RecipePO recipe, Integer seafoodId) {
+            addDoc(RECIPE, recipe.getRecipeId(), seafoodId, recipe.getRecipeName(), recipe.getRecipeBrief());
+        }
+
+        void addIngredient(IngredientPO ingredient) {
+            addDoc(INGREDIENT, ingredient.getIngredientId(), null, ingredient.getIngredientName(), null);
+        }
+
+        private void addDoc(String type, Integer ref, Integer seafoodId, String name, String brief) {
+            if (ref == null) {
+                return;
+            }
+            Map<String, Integer> tf = new HashMap<>();
+            for (String token : Tokenizer.tokenize(name, true)) {
+                tf.merge(token, NAME_BOOST, Integer::sum);
+            }
+            for (String token : Tokenizer.tokenize(brief, true)) {
+                tf.merge(token, 1, Integer::sum);
+            }
+            int doc = docCount;
+            if (doc == types.length) {
+                int capacity = doc * 2;
+                types = Arrays.copyOf(types, capacity);
+                refs = Arrays.copyOf(refs, capacity);
+                seafoodIds = Arrays.copyOf(seafoodIds, capacity);
+                titles = Arrays.copyOf(titles, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+            }
+            int length = tf.values().stream().mapToInt(Integer::intValue).sum();
+            types[doc] = type;
+            refs[doc] = ref;
+            seafoodIds[doc] = seafoodId;
+            titles[doc] = name;
+            lengths[doc] = length;
+            tf.forEach((term, freq) -> postings.computeIfAbsent(term, t -> new Postings()).append(doc, freq));
+            totalLength += length;
+            docCount++;
+        }
+
+        List<SearchHitDTO> search(List<String> terms, String type, int limit) {
+            if (docCount == 0) {
+                return List.of();
+            }
+            double avgLength = (double) totalLength / docCount;
+            Map<Integer, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (docCount - list.size + 0.5) / (list.size + 0.5));
+                for (int i = 0; i < list.size; i++) {
+                    int doc = list.docs[i];
+                    if (type != null && !type.equals(types[doc])) {
+                        continue;
+                    }
+                    int freq = list.freqs[i];
+                    double norm = K1 * (1 - B + B * lengths[doc] / avgLength);
+                    scores.merge(doc, idf * freq * (K1 + 1) / (freq + norm), Double::sum);
+                }
+            }
+            // 小顶堆保留得分最高的 limit 个
+            PriorityQueue<Map.Entry<Integer, Double>> top = new PriorityQueue<>(Map.Entry.comparingByValue());
+            for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+                top.offer(entry);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            List<SearchHitDTO> hits = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                Map.Entry<Integer, Double> entry = top.poll();
+                int doc = entry.getKey();
+                hits.add(new SearchHitDTO(types[doc], refs[doc], seafoodIds[doc], titles[doc], entry.getValue()));
+            }
+            Collections.reverse(hits);
+            return hits;
+        }
+    }
+
+    private static class Postings {
+        private int[] docs = new int[4];
+        private int[] freqs = new int[4];
+        private int size;
+
+        void append(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package maynooth.seefood.index;
+
+import maynooth.seefood.pojo.PO.SeafoodPO;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 时令索引：12 个月份桶，查询某月返回当月及前后各一个月的海鲜，
+ * 12 月与 1 月首尾相接。每次变更后预先算好 12 个结果列表，查询为 O(1)。
+ */
+@Component
+public class SeasonIndex implements CatalogIndex {
+
+    private static final Comparator<SeafoodPO> BY_ID = Comparator.comparing(SeafoodPO::getSeafoodId);
+
+    //下标 0-11 对应 1-12 月
+    private final List<List<SeafoodPO>> buckets = new ArrayList<>(12);
+    private volatile List<List<SeafoodPO>> results = emptyMonths();
+
+    public SeasonIndex() {
+        for (int i = 0; i < 12; i++) {
+            buckets.add(new ArrayList<>());
+        }
+    }
+
+    @Override
+    public synchronized void rebuild(Collection<SeafoodPO> seafoods) {
+        buckets.forEach(List::clear);
+        seafoods.forEach(this::putInBucket);
+        publish();
+    }
+
+    @Override
+    public synchronized void add(SeafoodPO seafood) {
+        if (putInBucket(seafood)) {
+            publish();
+        }
+    }
+
+    /**
+     * 当月及前后一个月的海鲜，按 seafoodId 排序
+     */
+    public List<SeafoodPO> get(int month) {
+        if (month < 1 || month > 12) {
+            throw new IllegalArgumentException("month must be 1-12: " + month);
+        }
+        return results.get(month - 1);
+    }
+
+    //先从所有月份桶里移除，季节改了的海鲜不会留在旧桶里
+    private boolean putInBucket(SeafoodPO seafood) {
+        boolean removed = false;
+        for (List<SeafoodPO> bucket : buckets) {
+            removed |= bucket.removeIf(s -> s.getSeafoodId().equals(seafood.getSeafoodId()));
+        }
+        int season = seafood.getSeason();
+        if (season < 1 || season > 12) {
+            return removed;
+        }
+        buckets.get(season - 1).add(seafood);
+        return true;
+    }
+
+    private void publish() {
+        List<List<SeafoodPO>> next = new ArrayList<>(12);
+        for (int i = 0; i < 12; i++) {
+            List<SeafoodPO> merged = new ArrayList<>();
+            merged.addAll(buckets.get((i + 11) % 12));
+            merged.addAll(buckets.get(i));
+            merged.addAll(buckets.get((i + 1) % 12));
+            merged.sort(BY_ID);
+            next.add(List.copyOf(merged));
+        }
+        results = List.copyOf(next);
+    }
+
+    private static List<List<SeafoodPO>> emptyMonths() {
+        return Collections.nCopies(12, List.of());
+    }
+}
@@ -0,0 +1,182 @@
+package maynooth.seefood.index;
+
+import maynooth.seefood.pojo.PO.SeafoodPO;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 标签索引：每个规范化后的标签对应一个按 seafoodId 置位的 long[] 位图，
+ * 多标签查询就是位图的与 / 或 / 非运算。写时复制，读操作无锁。
+ */
+@Component
+public class TagIndex implements CatalogIndex {
+
+    private static final long[] EMPTY = new long[0];
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), EMPTY);
+
+    /**
+     * 标签规范化：去空格、合并空白、转大写（中文不受影响）
+     */
+    public static String normalize(String tag) {
+        return tag == null ? "" : tag.trim().replaceAll("\\s+", " ").toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * 拆分 tags 列，兼容逗号与斜杠分隔
+     */
+    public static Set<String> parseTags(String tags) {
+        Set<String> result = new LinkedHashSet<>();
+        if (tags == null) {
+            return result;
+        }
+        for (String tag : tags.split("[,/]")) {
+            String normalized = normalize(tag);
+            if (!normalized.isEmpty()) {
+                result.add(normalized);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void rebuild(Collection<SeafoodPO> seafoods) {
+        Map<String, long[]> tags = new HashMap<>();
+        long[] universe = EMPTY;
+        for (SeafoodPO seafood : seafoods) {
+            int id = seafood.getSeafoodId();
+            universe = set(universe, id);
+            for (String tag : parseTags(seafood.getTags())) {
+                tags.put(tag, set(tags.getOrDefault(tag, EMPTY), id));
+            }
+        }
+        snapshot = new Snapshot(Map.copyOf(tags), universe);
+    }
+
+    @Override
+    public synchronized void add(SeafoodPO seafood) {
+        Snapshot current = snapshot;
+        int id = seafood.getSeafoodId();
+        Map<String, long[]> tags = new HashMap<>(current.tags);
+        // 先清掉旧标签，再按新标签置位；复制后再改，正在读旧快照的线程不受影响
+        current.tags.forEach((tag, bitmap) -> {
+            if (isSet(bitmap, id)) {
+                long[] cleared = bitmap.clone();
+                cleared[id >> 6] &= ~(1L << id);
+                if (cardinality(cleared) == 0) {
+                    tags.remove(tag);
+                } else {
+                    tags.put(tag, cleared);
+                }
+            }
+        });
+        for (String tag : parseTags(seafood.getTags())) {
+            tags.put(tag, set(copy(tags.getOrDefault(tag, EMPTY), id), id));
+        }
+        snapshot = new Snapshot(Map.copyOf(tags), set(copy(current.universe, id), id));
+    }
+
+    /**
+     * @param all  必须同时包含的标签（AND）
+     * @param any  至少包含其一的标签（OR），为空表示不限制
+     * @param none 不能包含的标签（NOT）
+     * @return 按 seafoodId 升序的匹配位图
+     */
+    public long[] query(Collection<String> all, Collection<String> any, Collection<String> none) {
+        Snapshot current = snapshot;
+        long[] result = current.universe.clone();
+        for (String tag : all) {
+            and(result, current.tags.getOrDefault(normalize(tag), EMPTY));
+        }
+        if (!any.isEmpty()) {
+            long[] union = new long[result.length];
+            for (String tag : any) {
+                or(union, current.tags.getOrDefault(normalize(tag), EMPTY));
+            }
+            and(result, union);
+        }
+        for (String tag : none) {
+            andNot(result, current.tags.getOrDefault(normalize(tag), EMPTY));
+        }
+        return result;
+    }
+
+    public static int cardinality(long[] bitmap) {
+        int count = 0;
+        for (long word : bitmap) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * 从第 offset 个置位开始取 limit 个 id，offset 超出置位数时返回空列表
+     */
+    public static List<Integer> page(long[] bitmap, long offset, int limit) {
+        List<Integer> ids = new ArrayList<>(Math.max(0, Math.min(limit, 64)));
+        if (offset < 0) {
+            return ids;
+        }
+        long skipped = 0;
+        for (int i = 0; i < bitmap.length && ids.size() < limit; i++) {
+            long word = bitmap[i];
+            int bits = Long.bitCount(word);
+            if (skipped + bits <= offset) {
+                skipped += bits;
+                continue;
+            }
+            while (word != 0 && ids.size() < limit) {
+                int bit = Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                if (skipped++ >= offset) {
+                    ids.add(i * 64 + bit);
+                }
+            }
+        }
+        return ids;
+    }
+
+    public Set<String> tags() {
+        return snapshot.tags.keySet();
+    }
+
+    private static boolean isSet(long[] bitmap, int id) {
+        int word = id >> 6;
+        return word < bitmap.length && (bitmap[word] & (1L << id)) != 0;
+    }
+
+    private static long[] copy(long[] bitmap, int id) {
+        return Arrays.copyOf(bitmap, Math.max(bitmap.length, (id >> 6) + 1));
+    }
+
+    private static long[] set(long[] bitmap, int id) {
+        int word = id >> 6;
+        if (word >= bitmap.length) {
+            bitmap = Arrays.copyOf(bitmap, Math.max(word + 1, bitmap.length * 2));
+        }
+        bitmap[word] |= 1L << id;
+        return bitmap;
+    }
+
+    private static void and(long[] target, long[] other) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] &= i < other.length ? other[i] : 0L;
+        }
+    }
+
+    private static void or(long[] target, long[] other) {
+        for (int i = 0; i < target.length && i < other.length; i++) {
+            target[i] |= other[i];
+        }
+    }
+
+    private static void andNot(long[] target, long[] other) {
+        for (int i = 0; i < target.length && i < other.length; i++) {
+            target[i] &= ~other[i];
+        }
+    }
+
+    private record Snapshot(Map<String, long[]> tags, long[] universe) {
+    }
+}
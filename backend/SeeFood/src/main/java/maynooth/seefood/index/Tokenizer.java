@@ -0,0 +1,76 @@
+package maynooth.seefood.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 分词：拉丁字母和数字按单词切分并转小写，中日韩文字没有空格，按相邻两个字切成 bigram。
+ * 建索引时额外保留单字，这样单个汉字的查询也能命中；查询时只有一个字才用单字。
+ */
+public final class Tokenizer {
+
+    private Tokenizer() {
+    }
+
+    //查询分词
+    public static List<String> tokenize(String text) {
+        return tokenize(text, false);
+    }
+
+    /**
+     * @param withUnigrams 中日韩文字是否同时输出单字（建索引时为 true）
+     */
+    public static List<String> tokenize(String text, boolean withUnigrams) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        StringBuilder word = new StringBuilder();
+        List<Integer> cjk = new ArrayList<>();
+        int i = 0;
+        while (i < lower.length()) {
+            int cp = lower.codePointAt(i);
+            i += Character.charCount(cp);
+            if (isCjk(cp)) {
+                flushWord(word, tokens);
+                cjk.add(cp);
+            } else if (Character.isLetterOrDigit(cp)) {
+                flushCjk(cjk, tokens, withUnigrams);
+                word.appendCodePoint(cp);
+            } else {
+                flushWord(word, tokens);
+                flushCjk(cjk, tokens, withUnigrams);
+            }
+        }
+        flushWord(word, tokens);
+        flushCjk(cjk, tokens, withUnigrams);
+        return tokens;
+    }
+
+    public static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    private static void flushWord(StringBuilder word, List<String> tokens) {
+        if (word.length() > 0) {
+            tokens.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static void flushCjk(List<Integer> run, List<String> tokens, boolean withUnigrams) {
+        if (run.size() == 1 || withUnigrams) {
+            run.forEach(cp -> tokens.add(new String(Character.toChars(cp))));
+        }
+        for (int j = 0; j + 1 < run.size(); j++) {
+            tokens.add(new StringBuilder().appendCodePoint(run.get(j)).appendCodePoint(run.get(j + 1)).toString());
+        }
+        run.clear();
+    }
+}
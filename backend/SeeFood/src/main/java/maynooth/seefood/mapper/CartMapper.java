@@ -5,6 +5,7 @@ import org.apache.ibatis.annotations.Mapper;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
@@ -28,6 +29,9 @@ public interface CartMapper {
 //    //reduce price
 //    int reducePrice(int cartId,double price);
 
+    //add one, or increment the user's unpaid row for this seafood; 0 if the seafood does not exist
+    int upsertCart(int seafoodId, long userId);
+
     //have added or not
     CartDTO selectWhetherBySeafoodId(int seafoodId,long userId);
 
@@ -40,12 +44,29 @@ public interface CartMapper {
     //update payed
     int updatePayed(int cartId, LocalDateTime orderTime);
 
+    //mark several carts payed in one statement
+    int updatePayedBatch(Collection<Integer> cartIds, LocalDateTime orderTime);
+
+    //unpaid carts of the user among cartIds, row-locked until the transaction ends
+    List<CartDTO> selectUnpaidCartsForUpdate(long userId, Collection<Integer> cartIds);
+
+    //only touches an unpaid cart of this user
+    int updateUnpaidCartCount(long userId, int cartId, int count);
+
+    int deleteUnpaidCart(long userId, int cartId);
+
+    //insert already-paid rows, price is the unit price
+    int insertPaidCarts(long userId, List<CartDTO> lines, LocalDateTime orderTime);
+
     //get not pay cart
     List<CartDTO> selectNoPayedCart(long userId);
 
     //get pay cart
     List<CartDTO> selectPayedCartByUserId(long userId);
 
+    //one page of paid carts, newest first, after (orderTime, cartId); orderTime null for the first page
+    List<CartDTO> selectPayedCartPage(long userId, LocalDateTime orderTime, int cartId, int limit);
+
     int updateCart(int cartId,int count);
 
 //    //add cart
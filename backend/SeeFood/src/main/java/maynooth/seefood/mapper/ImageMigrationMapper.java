@@ -0,0 +1,12 @@
+package maynooth.seefood.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.springframework.stereotype.Repository;
+
+@Mapper
+@Repository
+public interface ImageMigrationMapper {
+
+    //remember a row whose image could not be migrated so later startups skip it
+    int insertSkipped(String tableName, long rowId, String reason);
+}
@@ -0,0 +1,68 @@
+package maynooth.seefood.mapper;
+
+import lombok.extern.slf4j.Slf4j;
+import maynooth.seefood.service.ImageStore;
+import maynooth.seefood.utils.ImageUtil;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * 图片列的类型处理器：写入时把内联的 Base64 图片存入 {@link ImageStore} 只落库哈希。
+ * 读取时不做任何转换，历史遗留的内联图片原样返回，由启动时的 {@code ImageMigrationRunner} 一次性迁移。
+ * 只在 XML 中通过 typeHandler 显式引用，不实现 TypeReference，因此不会接管所有 String 列。
+ */
+@Component
+@Slf4j
+public class ImageRefTypeHandler implements TypeHandler<String> {
+
+    private final ImageStore imageStore;
+
+    public ImageRefTypeHandler(ImageStore imageStore) {
+        this.imageStore = imageStore;
+    }
+
+    @Override
+    public void setParameter(PreparedStatement ps, int i, String parameter, JdbcType jdbcType) throws SQLException {
+        String ref = toRef(parameter);
+        if (ref == null) {
+            ps.setNull(i, Types.VARCHAR);
+        } else {
+            ps.setString(i, ref);
+        }
+    }
+
+    @Override
+    public String getResult(ResultSet rs, String columnName) throws SQLException {
+        return rs.getString(columnName);
+    }
+
+    @Override
+    public String getResult(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getString(columnIndex);
+    }
+
+    @Override
+    public String getResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return cs.getString(columnIndex);
+    }
+
+    private String toRef(String value) {
+        if (value == null || value.isBlank() || ImageUtil.isImageRef(value)) {
+            return value;
+        }
+        try {
+            return imageStore.storeBase64(value);
+        } catch (IllegalArgumentException e) {
+            // 不是 Base64（例如外部 URL），原样保留
+            log.warn("Image column is not base64, kept as is: {}", value.substring(0, Math.min(value.length(), 60)));
+            return value;
+        }
+    }
+}
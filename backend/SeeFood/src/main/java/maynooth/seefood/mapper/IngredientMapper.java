@@ -1,11 +1,14 @@
 package maynooth.seefood.mapper;
 
+import maynooth.seefood.pojo.DTO.ICartDTO;
+import maynooth.seefood.pojo.DTO.SuggestionDTO;
 import maynooth.seefood.pojo.PO.ICartPO;
 import maynooth.seefood.pojo.PO.IngredientPO;
 import org.apache.ibatis.annotations.Mapper;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
@@ -16,8 +19,13 @@ public interface IngredientMapper {
 
     int addIngredient(IngredientPO ingredientPO);
 
+    //add one, or increment the user's unpaid row for this ingredient
+    int upsertIngredientCart(int ingredientId, long userId);
+
     Integer selectIngredientByIngredientName(String ingredientName);
 
+    IngredientPO selectIngredientByName(String ingredientName);
+
     Integer selectIngredientCountFromCart(int iCartId);
 
     Integer selectIngredientCartIdFromCart(String ingredientName, long userId);
@@ -32,11 +40,34 @@ public interface IngredientMapper {
 
     List<ICartPO> selectNoPayedIngredients(long userId);
 
+    //unpaid rows of the user among iCartIds, row-locked until the transaction ends; price is the unit price
+    List<ICartDTO> selectUnpaidICartsForUpdate(long userId, Collection<Integer> iCartIds);
+
+    //mark rows payed and store each line's total from ICartDTO.price
+    int updatePayedBatch(List<ICartDTO> lines, LocalDateTime orderTime);
+
     IngredientPO selectIngredientById(int ingredientId);
 
+    List<IngredientPO> selectIngredientsByIds(Collection<Integer> ingredientIds);
+
+    //only touches an unpaid row of this user
+    int updateUnpaidICartCount(long userId, int iCartId, int count);
+
+    int deleteUnpaidICart(long userId, int iCartId);
+
+    //insert already-paid rows, price is the line total
+    int insertPaidICarts(long userId, List<ICartDTO> lines, LocalDateTime orderTime);
+
     List<ICartPO> selectPayedIngredients(long userId);
 
+    //one page of paid rows, newest first, after (orderTime, iCartId); orderTime null for the first page
+    List<ICartPO> selectPayedIngredientPage(long userId, LocalDateTime orderTime, int iCartId, int limit);
+
     int deleteIngredientCart(int iCartId);
 
     int selectIngredientByCartId(int iCartId);
+
+    List<IngredientPO> selectAllIngredients();
+
+    List<SuggestionDTO> selectIngredientSuggestions();
 }
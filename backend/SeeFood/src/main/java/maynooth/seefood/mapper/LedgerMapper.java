@@ -0,0 +1,18 @@
+package maynooth.seefood.mapper;
+
+import maynooth.seefood.pojo.PO.LedgerPO;
+import org.apache.ibatis.annotations.Mapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Mapper
+@Repository
+public interface LedgerMapper {
+
+    //record a balance change
+    int insertLedger(LedgerPO ledgerPO);
+
+    //newest first
+    List<LedgerPO> selectLedgerByUserId(long userId);
+}
@@ -1,6 +1,7 @@
 package maynooth.seefood.mapper;
 
 
+import maynooth.seefood.pojo.PO.CookingPO;
 import maynooth.seefood.pojo.PO.RecipePO;
 import org.apache.ibatis.annotations.Mapper;
 import org.springframework.stereotype.Repository;
@@ -18,4 +19,14 @@ public interface RecipeMapper {
     int addRecipe(RecipePO recipePO);
 
     int addCooking(int seafoodId,int recipeId);
+
+    //rows still holding inline base64 images, by id after afterId
+    List<RecipePO> selectLegacyImages(int afterId, int limit);
+
+    int updateRecipeImage(int recipeId,String recipeImage);
+
+    //all recipes without images, for the search index
+    List<RecipePO> getAllRecipes();
+
+    List<CookingPO> getAllCookings();
 }
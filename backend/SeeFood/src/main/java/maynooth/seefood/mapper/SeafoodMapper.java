@@ -1,10 +1,14 @@
 package maynooth.seefood.mapper;
 
+import maynooth.seefood.pojo.DTO.ItemDTO;
+import maynooth.seefood.pojo.DTO.SeafoodSummaryDTO;
 import maynooth.seefood.pojo.PO.SeafoodPO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.stereotype.Repository;
 
 
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
@@ -17,9 +21,21 @@ public interface SeafoodMapper {
     //get popular list
     List<SeafoodPO> getSeafoodInPopularity();
 
+    //same rows as getSeafoodInPopularity, read one at a time; must be iterated inside a transaction
+    Cursor<SeafoodPO> streamSeafoodInPopularity();
+
+    //id, name, image and cost only, same order as getSeafoodInPopularity
+    List<SeafoodSummaryDTO> getSummariesInPopularity();
+
+    //summaries for the given ids, in no particular order
+    List<SeafoodSummaryDTO> getSummariesByIds(Collection<Integer> ids);
+
     //getById
     SeafoodPO getSeafoodById(int seafoodId);
 
+    //seafood with its recipes, one join query for any number of ids
+    List<ItemDTO> getItemDetails(Collection<Integer> ids);
+
     //getBySeason
     List<SeafoodPO> getSeafoodBySeason(int month);
 
@@ -35,4 +51,9 @@ public interface SeafoodMapper {
     //add seafood
     int addSeafood(SeafoodPO seafoodPO);
 
+    //rows still holding inline base64 images, by id after afterId
+    List<SeafoodPO> selectLegacyImages(int afterId, int limit);
+
+    int updateSeafoodImage(int seafoodId,String seafoodImage);
+
 }
@@ -1,5 +1,6 @@
 package maynooth.seefood.mapper;
 
+import maynooth.seefood.pojo.DTO.SeafoodSummaryDTO;
 import maynooth.seefood.pojo.PO.UserPO;
 import maynooth.seefood.pojo.PO.SeafoodPO;
 import org.apache.ibatis.annotations.Mapper;
@@ -20,7 +21,18 @@ public interface UserMapper {
     //get likes
     List<SeafoodPO> getLike(long userId);
 
+    //get likes, summary columns only
+    List<SeafoodSummaryDTO> getLikeSummaries(long userId);
+
     //update money
     int updateMoney(String username,double money);
 
+    //subtract amount only if the balance covers it; returns 1 on success, 0 otherwise
+    int debit(long userId, double amount);
+
+    //users still holding inline base64 avatars, by id after afterId
+    List<UserPO> selectLegacyAvatars(long afterId, int limit);
+
+    int updateAvatar(long userId,String avatar);
+
 }
@@ -0,0 +1,24 @@
+package maynooth.seefood.pojo.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CacheStatsDTO {
+    private String cacheName;
+    private long localHits;
+    private long redisHits;
+    private long misses;
+    //本地命中率
+    private double localHitRate;
+    //两级合计命中率
+    private double hitRate;
+    private long localEntries;
+    //等待同一 key 正在进行的加载、没有自己去查库的次数
+    private long coalescedLoads;
+    //软过期后台刷新的次数
+    private long refreshes;
+}
@@ -0,0 +1,21 @@
+package maynooth.seefood.pojo.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 合并购物车里的一行，lineId 为 cartId / iCartId，改数量和结账时用它
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartLineDTO {
+    private int lineId;
+    private int itemId;
+    private String name;
+    private String image;
+    private int count;
+    private double unitPrice;
+    private double lineTotal;
+}
@@ -0,0 +1,29 @@
+package maynooth.seefood.pojo.DTO;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量改购物车的一项：cartId（海鲜）和 iCartId（食材）只填一个，count 为 0 时删除该行
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartUpdateDTO {
+    private Integer cartId;
+    //和 ICartDTO 一样，JSON 里叫 icartId
+    private Integer iCartId;
+    private int count;
+
+    @JsonIgnore
+    public boolean isValid() {
+        return (cartId == null) != (iCartId == null) && count >= 0;
+    }
+
+    @JsonIgnore
+    public boolean isSeafood() {
+        return cartId != null;
+    }
+}
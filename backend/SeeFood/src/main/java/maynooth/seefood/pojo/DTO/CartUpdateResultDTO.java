@@ -0,0 +1,27 @@
+package maynooth.seefood.pojo.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量改购物车每一项的结果，顺序与请求一致
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartUpdateResultDTO {
+
+    public static final String UPDATED = "updated";
+    public static final String DELETED = "deleted";
+    //不是该用户未付款的购物车行
+    public static final String NOT_FOUND = "not_found";
+    //cartId、iCartId 都填或都没填，或者 count 为负数
+    public static final String INVALID = "invalid";
+
+    private Integer cartId;
+    //和 ICartDTO 一样，JSON 里叫 icartId
+    private Integer iCartId;
+    private int count;
+    private String status;
+}
@@ -0,0 +1,21 @@
+package maynooth.seefood.pojo.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 海鲜和食材两个购物车合在一起，金额与结账时扣款的算法一致
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartViewDTO {
+    private List<CartLineDTO> seafood;
+    private List<CartLineDTO> ingredients;
+    private double seafoodTotal;
+    private double ingredientTotal;
+    private double total;
+}
@@ -0,0 +1,17 @@
+package maynooth.seefood.pojo.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PageDTO<T> {
+    private List<T> items;
+    private long total;
+    private int page;
+    private int size;
+}
@@ -0,0 +1,18 @@
+package maynooth.seefood.pojo.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 列表页用的海鲜摘要，只查这几列；图片为哈希，缩略图用 /seefood/image/{hash}?size=s
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SeafoodSummaryDTO {
+    private Integer seafoodId;
+    private String seafoodName;
+    private String seafoodImage;
+    private double cost;
+}
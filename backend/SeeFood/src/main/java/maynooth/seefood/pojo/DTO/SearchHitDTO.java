@@ -0,0 +1,18 @@
+package maynooth.seefood.pojo.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SearchHitDTO {
+    //seafood / recipe / ingredient
+    private String type;
+    private int id;
+    //菜谱所属海鲜，其它类型为 null
+    private Integer seafoodId;
+    private String title;
+    private double score;
+}
@@ -0,0 +1,17 @@
+package maynooth.seefood.pojo.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SuggestionDTO {
+    //seafood / ingredient
+    private String type;
+    private int id;
+    private String name;
+    //海鲜为浏览量，食材为加入购物车次数
+    private int views;
+}
@@ -12,5 +12,5 @@ import lombok.NoArgsConstructor;
 public class UserDTO {
     private String username;
     private String brief;
-    private byte[] avatar;
+    private String avatar;
 }
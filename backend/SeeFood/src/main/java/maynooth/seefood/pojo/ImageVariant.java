@@ -0,0 +1,38 @@
+package maynooth.seefood.pojo;
+
+/**
+ * 图片尺寸规格，列表页用 S，详情页用 M，原图不在此列
+ */
+public enum ImageVariant {
+    S("s", 160),
+    M("m", 480);
+
+    private final String code;
+    private final int maxEdge;
+
+    ImageVariant(String code, int maxEdge) {
+        this.code = code;
+        this.maxEdge = maxEdge;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public int getMaxEdge() {
+        return maxEdge;
+    }
+
+    //null 表示原图
+    public static ImageVariant of(String code) {
+        if (code == null || code.isBlank()) {
+            return null;
+        }
+        for (ImageVariant variant : values()) {
+            if (variant.code.equalsIgnoreCase(code)) {
+                return variant;
+            }
+        }
+        throw new IllegalArgumentException("Unknown image size: " + code);
+    }
+}
@@ -0,0 +1,13 @@
+package maynooth.seefood.pojo.PO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CookingPO {
+    private Integer seafoodId;
+    private Integer recipeId;
+}
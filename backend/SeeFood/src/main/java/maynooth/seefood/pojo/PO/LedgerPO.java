@@ -0,0 +1,25 @@
+package maynooth.seefood.pojo.PO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LedgerPO {
+    public static final String CART = "CART";
+    public static final String ICART = "ICART";
+
+    private long ledgerId;
+    private long userId;
+    // 扣款为负数
+    private double amount;
+    // CART: 海鲜购物车付款, ICART: 食材购物车付款
+    private String reason;
+    // 付款的购物车 ID，逗号分隔
+    private String reference;
+    private LocalDateTime createdAt;
+}
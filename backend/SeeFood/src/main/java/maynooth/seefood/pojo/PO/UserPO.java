@@ -16,6 +16,6 @@ public class UserPO {
     private String username;
     private String password;
     private String brief;
-    private byte[] avatar;
+    private String avatar;
     private double money;
 }
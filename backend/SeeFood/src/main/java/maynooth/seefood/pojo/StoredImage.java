@@ -0,0 +1,15 @@
+package maynooth.seefood.pojo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.file.Path;
+
+@Data
+@AllArgsConstructor
+public class StoredImage {
+    private String hash;
+    private String contentType;
+    private long length;
+    private Path path;
+}
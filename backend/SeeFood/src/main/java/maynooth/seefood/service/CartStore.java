@@ -0,0 +1,66 @@
+package maynooth.seefood.service;
+
+import maynooth.seefood.pojo.DTO.CartDTO;
+import maynooth.seefood.pojo.DTO.CartUpdateDTO;
+import maynooth.seefood.pojo.DTO.ICartDTO;
+import maynooth.seefood.pojo.PO.ICartPO;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 未付款购物车的存储，由 seefood.cart.store 选择：mysql（默认，cart / ingredientcart 表）
+ * 或 redis（每个用户一个 hash，field 为商品 ID，值为数量）。已付款的订单始终写在 MySQL 里。
+ * <p>
+ * 购物车行的 ID 由实现决定：MySQL 为 cartId / iCartId，Redis 为 seafoodId / ingredientId，
+ * 前端把列表里拿到的 ID 原样传回即可。切换实现时未付款的购物车不会迁移。
+ */
+public interface CartStore {
+
+    //add one, or increment the unpaid line of this seafood; 0 if the seafood does not exist
+    int addSeafood(long userId, int seafoodId);
+
+    //ingredientId must exist, see IngredientDictionary.intern
+    int addIngredient(long userId, int ingredientId);
+
+    //count 0 deletes the line; 0 if the line is not an unpaid line of this user
+    int updateSeafood(long userId, int cartId, int count);
+
+    int updateIngredient(long userId, int iCartId, int count);
+
+    /**
+     * 一次改多行，count 为 0 的删除；须在事务里调用，要么全部生效要么全部不生效
+     *
+     * @param updates 已校验过的改动，cartId / iCartId 只有一个
+     * @return 与 updates 一一对应，1 为已修改，0 为不是该用户未付款的行
+     */
+    int[] updateLines(long userId, List<CartUpdateDTO> updates);
+
+    //price is the unit price
+    List<CartDTO> seafoodCart(long userId);
+
+    //price is left for the caller, ingredients are hydrated from IngredientDictionary
+    List<ICartPO> ingredientCart(long userId);
+
+    /**
+     * 结账：取出并占住要付款的行，同时进行的其它结账拿不到这些行。价格为单价。
+     *
+     * @return 有行不存在、不属于该用户或已付款时返回 null，此时什么也不占
+     */
+    List<CartDTO> reserveSeafood(long userId, Collection<Integer> cartIds);
+
+    //同 reserveSeafood，ingredient 已填好
+    List<ICartDTO> reserveIngredients(long userId, Collection<Integer> iCartIds);
+
+    //付款没成功，放回购物车
+    void releaseSeafood(long userId, List<CartDTO> lines);
+
+    void releaseIngredients(long userId, List<ICartDTO> lines);
+
+    //付款成功，在当前事务里写入已付款的订单行；事务回滚时这些行回到购物车
+    void completeSeafood(long userId, List<CartDTO> lines, LocalDateTime orderTime);
+
+    //price 为该行总价
+    void completeIngredients(long userId, List<ICartDTO> lines, LocalDateTime orderTime);
+}
@@ -0,0 +1,112 @@
+package maynooth.seefood.service;
+
+import maynooth.seefood.index.SeafoodCatalog;
+import maynooth.seefood.mapper.SeafoodMapper;
+import maynooth.seefood.pojo.DTO.CartDTO;
+import maynooth.seefood.pojo.DTO.CartLineDTO;
+import maynooth.seefood.pojo.DTO.CartViewDTO;
+import maynooth.seefood.pojo.DTO.ICartDTO;
+import maynooth.seefood.pojo.DTO.SeafoodSummaryDTO;
+import maynooth.seefood.pojo.LoginUser;
+import maynooth.seefood.pojo.PO.SeafoodPO;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 合并购物车：食材购物车在独立线程池里加载，海鲜购物车在请求线程里加载并批量补全名称和图片，两边同时进行。
+ * 线程池有界，队列满时由请求线程自己加载，退化为顺序执行。
+ */
+@Service
+public class CartViewService implements DisposableBean {
+
+    private final PurchaseService purchaseService;
+    private final SeafoodCatalog seafoodCatalog;
+    private final SeafoodMapper seafoodMapper;
+    private final ThreadPoolExecutor executor;
+
+    public CartViewService(PurchaseService purchaseService, SeafoodCatalog seafoodCatalog, SeafoodMapper seafoodMapper,
+                           @Value("${seefood.cart.view.threads:4}") int threads,
+                           @Value("${seefood.cart.view.queue:100}") int queue) {
+        this.purchaseService = purchaseService;
+        this.seafoodCatalog = seafoodCatalog;
+        this.seafoodMapper = seafoodMapper;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queue), r -> {
+                    Thread thread = new Thread(r, "cart-view");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public CartViewDTO getCart(LoginUser loginUser) {
+        CompletableFuture<List<ICartDTO>> ingredients =
+                CompletableFuture.supplyAsync(() -> purchaseService.selectNopayedICart(loginUser), executor);
+        List<CartLineDTO> seafoodLines = seafoodLines(purchaseService.selectNoPayedCart(loginUser));
+        List<CartLineDTO> ingredientLines;
+        try {
+            ingredientLines = ingredients.join().stream()
+                    .map(cart -> line(cart.getICartId(), cart.getIngredient().getIngredientId(),
+                            cart.getIngredient().getIngredientName(), cart.getIngredient().getIngredientPic(),
+                            cart.getCount(), cart.getPrice()))
+                    .toList();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        double seafoodTotal = total(seafoodLines);
+        double ingredientTotal = total(ingredientLines);
+        return new CartViewDTO(seafoodLines, ingredientLines, seafoodTotal, ingredientTotal, seafoodTotal + ingredientTotal);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    //名称和图片先从内存目录取，没有的一次查询补上；已下架的海鲜不显示
+    private List<CartLineDTO> seafoodLines(List<CartDTO> carts) {
+        Map<Integer, SeafoodSummaryDTO> summaries = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (CartDTO cart : carts) {
+            SeafoodPO seafood = seafoodCatalog.isReady() ? seafoodCatalog.get(cart.getSeafoodId()) : null;
+            if (seafood != null) {
+                summaries.put(seafood.getSeafoodId(), new SeafoodSummaryDTO(seafood.getSeafoodId(),
+                        seafood.getSeafoodName(), seafood.getSeafoodImage(), seafood.getCost()));
+            } else if (!summaries.containsKey(cart.getSeafoodId())) {
+                missing.add(cart.getSeafoodId());
+            }
+        }
+        if (!missing.isEmpty()) {
+            seafoodMapper.getSummariesByIds(missing).forEach(summary -> summaries.put(summary.getSeafoodId(), summary));
+        }
+        List<CartLineDTO> lines = new ArrayList<>(carts.size());
+        for (CartDTO cart : carts) {
+            SeafoodSummaryDTO summary = summaries.get(cart.getSeafoodId());
+            if (summary != null) {
+                // 单价取购物车行上的价格，与结账扣款一致
+                lines.add(line(cart.getCartId(), cart.getSeafoodId(), summary.getSeafoodName(),
+                        summary.getSeafoodImage(), cart.getCount(), cart.getPrice()));
+            }
+        }
+        return lines;
+    }
+
+    private static CartLineDTO line(int lineId, int itemId, String name, String image, int count, double unitPrice) {
+        return new CartLineDTO(lineId, itemId, name, image, count, unitPrice, count * unitPrice);
+    }
+
+    private static double total(List<CartLineDTO> lines) {
+        double total = 0;
+        for (CartLineDTO line : lines) {
+            total += line.getLineTotal();
+        }
+        return total;
+    }
+}
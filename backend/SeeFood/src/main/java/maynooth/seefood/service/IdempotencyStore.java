@@ -0,0 +1,204 @@
+package maynooth.seefood.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import maynooth.seefood.pojo.Result;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.IntSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * 按客户端的 Idempotency-Key 去重：同一用户、同一接口、同一个 key 的请求只执行一次，重试直接拿第一次的结果。
+ * <p>
+ * 结果存两份：本地 Caffeine 和 Redis（seefood:idem:{userId}:{scope}:{key}），都在 ttl 后过期。
+ * 执行前先在 Redis 里用 SET NX 写一个 "执行中" 标记，别的节点上的重复请求轮询等结果；
+ * 本节点上的重复请求等同一个 future。执行抛异常时删掉标记，不记结果，重试会重新执行。
+ * Redis 不可用时只在本节点去重。
+ * <p>
+ * 每个 key 同时记下请求内容的指纹，同一个 key 带着不同的内容来会被拒绝。
+ */
+@Component
+@Slf4j
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final String PREFIX = "seefood:idem:";
+    private static final String PENDING = "P|";
+    private static final String DONE = "D|";
+    private static final Pattern VALID_KEY = Pattern.compile("[A-Za-z0-9_\\-:.]{1,64}");
+    //只删除自己写的执行中标记
+    private static final DefaultRedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+    private final Duration lockTimeout;
+    private final Duration wait;
+    //已完成的结果，值为 "指纹|结果"
+    private final Cache<String, String> completed;
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param ttl         结果保留多久，客户端在这段时间内的重试都返回同一个结果
+     * @param lockTimeout 执行中标记的有效期，执行节点挂掉后过了这段时间重试才会重新执行
+     * @param wait        重复请求最多等待第一次执行的时间，超时返回 409
+     */
+    public IdempotencyStore(StringRedisTemplate redisTemplate,
+                            @Value("${seefood.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${seefood.idempotency.lock-timeout:30s}") Duration lockTimeout,
+                            @Value("${seefood.idempotency.wait:10s}") Duration wait) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = ttl;
+        this.lockTimeout = lockTimeout;
+        this.wait = wait;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public static boolean isValidKey(String key) {
+        return key != null && VALID_KEY.matcher(key).matches();
+    }
+
+    /**
+     * @param scope       接口名，不同接口的同一个 key 互不影响
+     * @param fingerprint 请求内容，同一个 key 只能对应同一个内容
+     * @param action      第一次请求时执行，返回值作为所有重试的结果
+     */
+    public Result execute(long userId, String scope, String key, String fingerprint, IntSupplier action) {
+        String id = userId + ":" + scope + ":" + key;
+        String done = completed.getIfPresent(id);
+        if (done != null) {
+            return replay(done, fingerprint);
+        }
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> running = inFlight.putIfAbsent(id, mine);
+        if (running != null) {
+            return awaitLocal(running, fingerprint);
+        }
+        try {
+            String stored = claimOrAwait(id, fingerprint, action);
+            mine.complete(stored);
+            return stored == null ? inProgress() : replay(stored, fingerprint);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, mine);
+        }
+    }
+
+    //返回 "指纹|结果"；别的节点还在执行、等不到结果时返回 null
+    private String claimOrAwait(String id, String fingerprint, IntSupplier action) {
+        String redisKey = PREFIX + id;
+        String marker = PENDING + UUID.randomUUID();
+        Boolean claimed;
+        try {
+            claimed = redisTemplate.opsForValue().setIfAbsent(redisKey, marker, lockTimeout);
+        } catch (Exception e) {
+            log.warn("Idempotency store unavailable for {}, deduplicating on this node only: {}", id, e.toString());
+            claimed = null;
+        }
+        if (Boolean.FALSE.equals(claimed)) {
+            String stored = awaitRemote(redisKey);
+            if (stored != null) {
+                completed.put(id, stored);
+            }
+            return stored;
+        }
+        int value;
+        try {
+            value = action.getAsInt();
+        } catch (RuntimeException e) {
+            if (claimed != null) {
+                release(redisKey, marker);
+            }
+            throw e;
+        }
+        String stored = fingerprint + "|" + value;
+        completed.put(id, stored);
+        if (claimed != null) {
+            try {
+                redisTemplate.opsForValue().set(redisKey, DONE + stored, ttl);
+            } catch (Exception e) {
+                // 执行中标记过期后，别的节点上的重试会重新执行；本节点仍有本地结果
+                log.warn("Failed to store idempotent result for {}: {}", id, e.toString());
+            }
+        }
+        return stored;
+    }
+
+    private String awaitRemote(String redisKey) {
+        long deadline = System.currentTimeMillis() + wait.toMillis();
+        try {
+            while (true) {
+                String value = redisTemplate.opsForValue().get(redisKey);
+                if (value != null && value.startsWith(DONE)) {
+                    return value.substring(DONE.length());
+                }
+                if (System.currentTimeMillis() >= deadline) {
+                    return null;
+                }
+                Thread.sleep(50);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            log.warn("Idempotency lookup failed for {}: {}", redisKey, e.toString());
+            return null;
+        }
+    }
+
+    private Result awaitLocal(CompletableFuture<String> running, String fingerprint) {
+        try {
+            String stored = running.get(wait.toMillis(), TimeUnit.MILLISECONDS);
+            return stored == null ? inProgress() : replay(stored, fingerprint);
+        } catch (TimeoutException e) {
+            return inProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return inProgress();
+        } catch (ExecutionException e) {
+            // 第一次执行失败了，没有结果可以复用
+            return new Result(409, "The original request failed, retry with a new key", null);
+        }
+    }
+
+    private void release(String redisKey, String marker) {
+        try {
+            redisTemplate.execute(RELEASE, List.of(redisKey), marker);
+        } catch (Exception e) {
+            // 标记会自己过期
+            log.warn("Failed to release idempotency marker {}: {}", redisKey, e.toString());
+        }
+    }
+
+    private static Result replay(String stored, String fingerprint) {
+        int split = stored.lastIndexOf('|');
+        if (!stored.substring(0, split).equals(fingerprint)) {
+            return new Result(422, "Idempotency key was used for a different request", null);
+        }
+        return new Result(200, "Success", Integer.valueOf(stored.substring(split + 1)));
+    }
+
+    private static Result inProgress() {
+        return new Result(409, "A request with this key is still in progress", null);
+    }
+}
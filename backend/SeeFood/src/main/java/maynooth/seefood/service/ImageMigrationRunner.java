@@ -0,0 +1,102 @@
+package maynooth.seefood.service;
+
+import lombok.extern.slf4j.Slf4j;
+import maynooth.seefood.mapper.ImageMigrationMapper;
+import maynooth.seefood.mapper.RecipeMapper;
+import maynooth.seefood.mapper.SeafoodMapper;
+import maynooth.seefood.mapper.UserMapper;
+import maynooth.seefood.pojo.PO.RecipePO;
+import maynooth.seefood.pojo.PO.SeafoodPO;
+import maynooth.seefood.pojo.PO.UserPO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * 一次性迁移：把库里仍然内联保存的 Base64 图片写入图片存储，行内只保留哈希。
+ * 按主键分批读取，内存里同时只有一批图片；转换不了的行（外部 URL、解码出来不是图片）记到
+ * image_migration_skip，以后启动不再读取。已迁移的行不会再被查出来，重复执行没有代价。
+ * 默认开启，seefood.image.migrate-legacy=false 关闭。
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "seefood.image.migrate-legacy", havingValue = "true", matchIfMissing = true)
+public class ImageMigrationRunner implements ApplicationRunner {
+
+    static final int BATCH = 100;
+
+    @Autowired
+    private SeafoodMapper seafoodMapper;
+    @Autowired
+    private RecipeMapper recipeMapper;
+    @Autowired
+    private UserMapper userMapper;
+    @Autowired
+    private ImageMigrationMapper imageMigrationMapper;
+    @Autowired
+    private ImageStore imageStore;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            migrate();
+        } catch (Exception e) {
+            // 迁移失败不影响启动，未迁移的行仍按原样返回，下次启动再迁移
+            log.warn("Legacy image migration failed: {}", e.toString());
+        }
+    }
+
+    void migrate() {
+        migrate("seafood", (after, limit) -> seafoodMapper.selectLegacyImages(after.intValue(), limit),
+                SeafoodPO::getSeafoodId, SeafoodPO::getSeafoodImage,
+                (seafood, hash) -> seafoodMapper.updateSeafoodImage(seafood.getSeafoodId(), hash));
+        migrate("recipe", (after, limit) -> recipeMapper.selectLegacyImages(after.intValue(), limit),
+                RecipePO::getRecipeId, RecipePO::getRecipeImage,
+                (recipe, hash) -> recipeMapper.updateRecipeImage(recipe.getRecipeId(), hash));
+        migrate("user", userMapper::selectLegacyAvatars,
+                UserPO::getUserId, UserPO::getAvatar,
+                (user, hash) -> userMapper.updateAvatar(user.getUserId(), hash));
+    }
+
+    /**
+     * @param page   (上一批最后一个 ID, 条数) -> 下一批
+     * @param update 把哈希写回这一行
+     */
+    private <T> void migrate(String table, BiFunction<Long, Integer, List<T>> page, ToLongFunction<T> id,
+                             Function<T, String> image, BiFunction<T, String, Integer> update) {
+        int migrated = 0;
+        int skipped = 0;
+        int failed = 0;
+        long after = 0;
+        List<T> rows;
+        do {
+            rows = page.apply(after, BATCH);
+            for (T row : rows) {
+                after = id.applyAsLong(row);
+                try {
+                    migrated += update.apply(row, imageStore.storeBase64(image.apply(row)));
+                } catch (IllegalArgumentException e) {
+                    // 不是内联图片，原样保留，以后不再读取
+                    imageMigrationMapper.insertSkipped(table, after, e.getMessage());
+                    skipped++;
+                } catch (RuntimeException e) {
+                    // 写文件或写库失败，下次启动再试
+                    log.warn("Legacy image migration failed for {} {}: {}", table, after, e.toString());
+                    failed++;
+                }
+            }
+        } while (rows.size() == BATCH);
+        if (skipped > 0 || failed > 0) {
+            log.warn("Legacy {} images migrated: {}, skipped: {}, failed: {}", table, migrated, skipped, failed);
+        } else {
+            log.info("Legacy {} images migrated: {}", table, migrated);
+        }
+    }
+}
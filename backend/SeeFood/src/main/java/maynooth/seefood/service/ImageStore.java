@@ -0,0 +1,21 @@
+package maynooth.seefood.service;
+
+import maynooth.seefood.pojo.StoredImage;
+
+/**
+ * 图片存储：按内容的 SHA-256 寻址，数据库行里只保存哈希。
+ * 默认实现为本地文件系统，可替换为对象存储等其它实现。
+ */
+public interface ImageStore {
+
+    //store raw bytes, return sha-256 hex; IllegalArgumentException if they are not a JPEG/PNG/GIF/WebP image
+    String store(byte[] data);
+
+    //decode base64 / data uri once and store, return sha-256 hex; IllegalArgumentException if not base64 or not an image
+    String storeBase64(String encoded);
+
+    //null if the image does not exist
+    StoredImage find(String hash);
+
+    boolean exists(String hash);
+}
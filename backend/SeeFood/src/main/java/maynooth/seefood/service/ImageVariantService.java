@@ -0,0 +1,227 @@
+package maynooth.seefood.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import maynooth.seefood.event.ImageStoredEvent;
+import maynooth.seefood.pojo.ImageVariant;
+import maynooth.seefood.pojo.StoredImage;
+import maynooth.seefood.utils.ImageUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 图片衍生尺寸：新图片写入后在有界线程池里生成 JPEG 缩略图并缓存在磁盘，
+ * 路径为 {dir}/variants/{size}/{hash前两位}/{hash}.jpg
+ */
+@Service
+@Slf4j
+public class ImageVariantService {
+
+    private static final float JPEG_QUALITY = 0.8f;
+
+    private final ImageStore imageStore;
+    private final Path root;
+    private final long waitMillis;
+    //解码前先看尺寸，超过的不生成，防止高压缩比的图片解码后撑爆堆
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+
+    //hash:size -> 正在生成的任务，同一个衍生图只生成一次
+    private final Map<String, Future<Path>> inFlight = new ConcurrentHashMap<>();
+
+    public ImageVariantService(ImageStore imageStore,
+                               @Value("${seefood.image.dir}") String dir,
+                               @Value("${seefood.image.variant.threads:2}") int threads,
+                               @Value("${seefood.image.variant.queue:64}") int queue,
+                               @Value("${seefood.image.variant.wait-millis:2000}") long waitMillis,
+                               @Value("${seefood.image.variant.max-pixels:40000000}") long maxPixels) {
+        this.imageStore = imageStore;
+        this.root = Paths.get(dir).toAbsolutePath().resolve("variants");
+        this.waitMillis = waitMillis;
+        this.maxPixels = maxPixels;
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread thread = new Thread(r, "image-variant-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // 队列满时直接拒绝，请求到来时再按需生成
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queue), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @EventListener
+    public void onImageStored(ImageStoredEvent event) {
+        for (ImageVariant variant : ImageVariant.values()) {
+            try {
+                submit(event.getHash(), variant);
+            } catch (RejectedExecutionException e) {
+                log.warn("Variant queue full, {} of {} will be generated on demand", variant, event.getHash());
+            }
+        }
+    }
+
+    /**
+     * 查找衍生图；还没有时提交生成并最多等待 wait-millis，超时或失败返回 null
+     */
+    public StoredImage find(String hash, ImageVariant variant) {
+        if (!ImageUtil.isImageRef(hash)) {
+            return null;
+        }
+        Path path = pathOf(hash, variant);
+        if (!Files.exists(path)) {
+            if (!imageStore.exists(hash)) {
+                return null;
+            }
+            try {
+                submit(hash, variant).get(waitMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException | TimeoutException e) {
+                log.warn("Variant {} of {} not ready", variant, hash);
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                log.warn("Variant {} of {} failed: {}", variant, hash, e.getCause().getMessage());
+                return null;
+            }
+        }
+        try {
+            return new StoredImage(hash, "image/jpeg", Files.size(path), path);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private Future<Path> submit(String hash, ImageVariant variant) {
+        String key = hash + ":" + variant.getCode();
+        Future<Path> existing = inFlight.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        FutureTask<Path> task = new FutureTask<>(() -> {
+            try {
+                return generate(hash, variant);
+            } finally {
+                inFlight.remove(key);
+            }
+        });
+        existing = inFlight.putIfAbsent(key, task);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, task);
+            throw e;
+        }
+        return task;
+    }
+
+    private Path generate(String hash, ImageVariant variant) throws IOException {
+        Path target = pathOf(hash, variant);
+        if (Files.exists(target)) {
+            return target;
+        }
+        StoredImage original = imageStore.find(hash);
+        if (original == null) {
+            throw new NoSuchFileException(hash);
+        }
+        BufferedImage source = read(original);
+        BufferedImage scaled = scale(source, variant.getMaxEdge());
+
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), hash, ".tmp");
+        try {
+            writeJpeg(scaled, tmp);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        log.info("Image variant generated: {} {} {}x{}", hash, variant, scaled.getWidth(), scaled.getHeight());
+        return target;
+    }
+
+    //先从文件头读出宽高，超过 maxPixels 的拒绝，不解码像素
+    private BufferedImage read(StoredImage original) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.getPath().toFile())) {
+            Iterator<ImageReader> readers = in == null ? Collections.emptyIterator() : ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format: " + original.getContentType());
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    throw new IOException("Image too large: " + reader.getWidth(0) + "x" + reader.getHeight(0));
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 等比缩放到最长边不超过 maxEdge，透明背景填白（JPEG 不支持透明）
+     */
+    private static BufferedImage scale(BufferedImage source, int maxEdge) {
+        double ratio = Math.min(1.0, (double) maxEdge / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private static void writeJpeg(BufferedImage image, Path path) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(JPEG_QUALITY);
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(path.toFile())) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private Path pathOf(String hash, ImageVariant variant) {
+        return root.resolve(variant.getCode()).resolve(hash.substring(0, 2)).resolve(hash + ".jpg");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -3,8 +3,12 @@ package maynooth.seefood.service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import maynooth.seefood.pojo.DTO.ItemDTO;
 
+import java.util.List;
+
 
 public interface ItemService {
 
    ItemDTO getDetail(int itemId);
+
+   List<ItemDTO> getDetails(List<Integer> itemIds);
 }
@@ -1,35 +1,72 @@
 package maynooth.seefood.service;
 
 
-import maynooth.seefood.mapper.RecipeMapper;
+import maynooth.seefood.cache.TwoLevelCache;
 import maynooth.seefood.mapper.SeafoodMapper;
 import maynooth.seefood.pojo.DTO.ItemDTO;
-import maynooth.seefood.pojo.PO.RecipePO;
-import maynooth.seefood.pojo.PO.SeafoodPO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.util.*;
 
 @Service
 public class ItemServiceImpl implements ItemService {
     @Autowired
     private SeafoodMapper seafoodMapper;
     @Autowired
-    private RecipeMapper recipeMapper;
+    private CacheManager cacheManager;
 
 
     @Override
-    @Cacheable(cacheNames = "item:detail", key = "#itemId")
+    @Cacheable(cacheNames = "item:detail", key = "#itemId", sync = true)
     public ItemDTO getDetail(int itemId) {
-        //get seafood by seafoodId
-        SeafoodPO seafood= seafoodMapper.getSeafoodById(itemId);
-        //get recipe by seafoodId
-        List<RecipePO> recipePOs = recipeMapper.getRecipeBySeafoodId(itemId);
-        //create an itemDTO
-        return new ItemDTO(itemId,recipePOs,seafood);
+        //seafood and its recipes in one join query
+        List<ItemDTO> items = seafoodMapper.getItemDetails(List.of(itemId));
+        if (items.isEmpty()) {
+            return new ItemDTO(itemId, new ArrayList<>(), null);
+        }
+        return items.get(0);
     }
 
+    // 批量详情：缓存命中的一次 MGET 取回，未命中的一条 SQL 查出后再批量写回缓存
+    @Override
+    public List<ItemDTO> getDetails(List<Integer> itemIds) {
+        Set<Integer> ids = new LinkedHashSet<>(itemIds);
+        Cache cache = cacheManager.getCache("item:detail");
+        Map<Object, Object> found = new HashMap<>();
+        if (cache instanceof TwoLevelCache twoLevelCache) {
+            found.putAll(twoLevelCache.getAll(ids));
+        } else if (cache != null) {
+            ids.forEach(id -> {
+                ItemDTO item = cache.get(id, ItemDTO.class);
+                if (item != null) {
+                    found.put(id, item);
+                }
+            });
+        }
+        List<Integer> missing = ids.stream().filter(id -> !found.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            Map<Integer, ItemDTO> loaded = new LinkedHashMap<>();
+            seafoodMapper.getItemDetails(missing).forEach(item -> loaded.put(item.getItemId(), item));
+            if (cache instanceof TwoLevelCache twoLevelCache) {
+                twoLevelCache.putAll(loaded);
+            } else if (cache != null) {
+                loaded.forEach(cache::put);
+            }
+            found.putAll(loaded);
+        }
+        //不存在的海鲜直接跳过
+        List<ItemDTO> result = new ArrayList<>(ids.size());
+        ids.forEach(id -> {
+            Object item = found.get(id);
+            if (item != null) {
+                result.add((ItemDTO) item);
+            }
+        });
+        return result;
+    }
 
 }
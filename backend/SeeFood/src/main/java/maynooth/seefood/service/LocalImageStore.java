@@ -0,0 +1,111 @@
+package maynooth.seefood.service;
+
+import lombok.extern.slf4j.Slf4j;
+import maynooth.seefood.event.ImageStoredEvent;
+import maynooth.seefood.pojo.StoredImage;
+import maynooth.seefood.utils.ImageUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本地文件系统图片存储，文件路径为 {dir}/{hash前两位}/{hash}
+ */
+@Service
+@Slf4j
+public class LocalImageStore implements ImageStore {
+
+    private final Path root;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    //hash -> content type，避免每次请求都读取文件头
+    private final Map<String, String> contentTypes = new ConcurrentHashMap<>();
+
+    public LocalImageStore(@Value("${seefood.image.dir}") String dir, ApplicationEventPublisher eventPublisher) {
+        this.root = Paths.get(dir).toAbsolutePath();
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public String store(byte[] data) {
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("Image data is empty");
+        }
+        // 只存认得出的图片格式，解码出来的任意字节不能当成图片落库
+        if (ImageUtil.UNKNOWN_TYPE.equals(ImageUtil.sniffContentType(data))) {
+            throw new IllegalArgumentException("Not a JPEG, PNG, GIF or WebP image");
+        }
+        String hash = ImageUtil.sha256Hex(data);
+        Path target = pathOf(hash);
+        if (Files.exists(target)) {
+            return hash;
+        }
+        try {
+            Files.createDirectories(target.getParent());
+            // 先写临时文件再原子改名，并发写同一张图片也不会读到半个文件
+            Path tmp = Files.createTempFile(target.getParent(), hash, ".tmp");
+            try {
+                Files.write(tmp, data);
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                log.debug("Image {} stored concurrently", hash);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Image Save Failed: " + hash, e);
+        }
+        contentTypes.put(hash, ImageUtil.sniffContentType(data));
+        log.info("Image stored: {} ({} bytes)", hash, data.length);
+        // 第一次写入时生成缩略图等衍生尺寸
+        eventPublisher.publishEvent(new ImageStoredEvent(hash));
+        return hash;
+    }
+
+    @Override
+    public String storeBase64(String encoded) {
+        return store(ImageUtil.decodeBase64Image(encoded));
+    }
+
+    @Override
+    public StoredImage find(String hash) {
+        if (!ImageUtil.isImageRef(hash)) {
+            return null;
+        }
+        Path path = pathOf(hash);
+        try {
+            long length = Files.size(path);
+            String contentType = contentTypes.computeIfAbsent(hash, h -> sniff(path));
+            return new StoredImage(hash, contentType, length, path);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean exists(String hash) {
+        return ImageUtil.isImageRef(hash) && Files.exists(pathOf(hash));
+    }
+
+    private Path pathOf(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private static String sniff(Path path) {
+        try (InputStream in = Files.newInputStream(path)) {
+            return ImageUtil.sniffContentType(in.readNBytes(12));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
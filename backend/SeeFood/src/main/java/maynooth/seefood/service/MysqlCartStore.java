@@ -0,0 +1,159 @@
+package maynooth.seefood.service;
+
+import maynooth.seefood.mapper.CartMapper;
+import maynooth.seefood.mapper.IngredientMapper;
+import jakarta.annotation.PostConstruct;
+import maynooth.seefood.pojo.DTO.CartDTO;
+import maynooth.seefood.pojo.DTO.CartUpdateDTO;
+import maynooth.seefood.pojo.DTO.ICartDTO;
+import maynooth.seefood.pojo.PO.ICartPO;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 购物车直接存在 cart / ingredientcart 表里，结账时靠 select ... for update 占住行，事务结束释放
+ */
+@Service
+@ConditionalOnProperty(name = "seefood.cart.store", havingValue = "mysql", matchIfMissing = true)
+public class MysqlCartStore implements CartStore {
+
+    @Autowired
+    private CartMapper cartMapper;
+    @Autowired
+    private IngredientMapper ingredientMapper;
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+    //批量改购物车用的 BATCH 执行器，在 Spring 事务里与普通 Mapper 共用连接
+    private SqlSessionTemplate batchSession;
+
+    @PostConstruct
+    void initBatchSession() {
+        batchSession = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+    }
+
+    @Override
+    public int addSeafood(long userId, int seafoodId) {
+        return cartMapper.upsertCart(seafoodId, userId) > 0 ? 1 : 0;
+    }
+
+    @Override
+    public int addIngredient(long userId, int ingredientId) {
+        return ingredientMapper.upsertIngredientCart(ingredientId, userId) > 0 ? 1 : 0;
+    }
+
+    @Override
+    public int updateSeafood(long userId, int cartId, int count) {
+        if (count == 0) {
+            return cartMapper.deleteUnpaidCart(userId, cartId);
+        }
+        return cartMapper.updateUnpaidCartCount(userId, cartId, count);
+    }
+
+    @Override
+    public int updateIngredient(long userId, int iCartId, int count) {
+        if (count == 0) {
+            return ingredientMapper.deleteUnpaidICart(userId, iCartId);
+        }
+        return ingredientMapper.updateUnpaidICartCount(userId, iCartId, count);
+    }
+
+    /**
+     * 同一条 SQL 连续执行时 MyBatis 复用同一个 PreparedStatement，所以按海鲜改数量、海鲜删除、
+     * 食材改数量、食材删除分成四组依次加入 JDBC batch，flush 一次拿到每条语句的影响行数再按原顺序返回。
+     * 事务里之前不能用过普通执行器，否则 MyBatis 不允许切换到 BATCH。
+     */
+    @Override
+    public int[] updateLines(long userId, List<CartUpdateDTO> updates) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            // 没有事务时 BATCH 会话每次调用都会关闭，语句不会真正执行
+            throw new IllegalStateException("updateLines must run inside a transaction");
+        }
+        List<Integer> order = new ArrayList<>(updates.size());
+        for (int group = 0; group < 4; group++) {
+            for (int i = 0; i < updates.size(); i++) {
+                if (group(updates.get(i)) == group) {
+                    order.add(i);
+                }
+            }
+        }
+        CartMapper carts = batchSession.getMapper(CartMapper.class);
+        IngredientMapper ingredients = batchSession.getMapper(IngredientMapper.class);
+        for (int i : order) {
+            CartUpdateDTO update = updates.get(i);
+            switch (group(update)) {
+                case 0 -> carts.updateUnpaidCartCount(userId, update.getCartId(), update.getCount());
+                case 1 -> carts.deleteUnpaidCart(userId, update.getCartId());
+                case 2 -> ingredients.updateUnpaidICartCount(userId, update.getICartId(), update.getCount());
+                default -> ingredients.deleteUnpaidICart(userId, update.getICartId());
+            }
+        }
+        int[] counts = new int[updates.size()];
+        int next = 0;
+        for (BatchResult result : batchSession.flushStatements()) {
+            for (int count : result.getUpdateCounts()) {
+                counts[order.get(next++)] = count > 0 || count == Statement.SUCCESS_NO_INFO ? 1 : 0;
+            }
+        }
+        if (next != order.size()) {
+            throw new IllegalStateException("Expected " + order.size() + " update counts, got " + next);
+        }
+        return counts;
+    }
+
+    private static int group(CartUpdateDTO update) {
+        return (update.isSeafood() ? 0 : 2) + (update.getCount() == 0 ? 1 : 0);
+    }
+
+    @Override
+    public List<CartDTO> seafoodCart(long userId) {
+        return cartMapper.selectNoPayedCart(userId);
+    }
+
+    @Override
+    public List<ICartPO> ingredientCart(long userId) {
+        return ingredientMapper.selectNoPayedIngredients(userId);
+    }
+
+    @Override
+    public List<CartDTO> reserveSeafood(long userId, Collection<Integer> cartIds) {
+        List<CartDTO> lines = cartMapper.selectUnpaidCartsForUpdate(userId, cartIds);
+        return lines.size() == cartIds.size() ? lines : null;
+    }
+
+    @Override
+    public List<ICartDTO> reserveIngredients(long userId, Collection<Integer> iCartIds) {
+        List<ICartDTO> lines = ingredientMapper.selectUnpaidICartsForUpdate(userId, iCartIds);
+        return lines.size() == iCartIds.size() ? lines : null;
+    }
+
+    //行锁随事务释放，数据没有改动
+    @Override
+    public void releaseSeafood(long userId, List<CartDTO> lines) {
+    }
+
+    @Override
+    public void releaseIngredients(long userId, List<ICartDTO> lines) {
+    }
+
+    @Override
+    public void completeSeafood(long userId, List<CartDTO> lines, LocalDateTime orderTime) {
+        cartMapper.updatePayedBatch(lines.stream().map(CartDTO::getCartId).toList(), orderTime);
+    }
+
+    @Override
+    public void completeIngredients(long userId, List<ICartDTO> lines, LocalDateTime orderTime) {
+        ingredientMapper.updatePayedBatch(lines, orderTime);
+    }
+}
@@ -1,9 +1,13 @@
 package maynooth.seefood.service;
 
 import maynooth.seefood.pojo.DTO.CartDTO;
+import maynooth.seefood.pojo.DTO.CartUpdateDTO;
+import maynooth.seefood.pojo.DTO.CartUpdateResultDTO;
+import maynooth.seefood.pojo.DTO.CursorPageDTO;
 import maynooth.seefood.pojo.DTO.ICartDTO;
 import maynooth.seefood.pojo.LoginUser;
 import maynooth.seefood.pojo.PO.IngredientPO;
+import maynooth.seefood.utils.OrderCursor;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
@@ -22,7 +26,7 @@ public interface PurchaseService {
     //add to cart
     int addToCart(LoginUser loginUser, int seafoodId);
 
-    int updateCount(int cartId,int count);
+    int updateCount(LoginUser loginUser, int cartId, int count);
 
     //pay
     int goToPayCart(LoginUser loginUser, List<Integer> cartIdIds);
@@ -35,7 +39,15 @@ public interface PurchaseService {
 
     //更新石材数量
 
-    int updateIngredientCart(int iCartId, int count);
+    int updateIngredientCart(LoginUser loginUser, int iCartId, int count);
+
+    //批量改数量，结果顺序与 updates 一致
+    List<CartUpdateResultDTO> updateCarts(LoginUser loginUser, List<CartUpdateDTO> updates);
 
     List<ICartDTO> selectPayedICart(LoginUser loginUser);
+
+    //订单历史翻页，cursor 为 null 取第一页
+    CursorPageDTO<CartDTO> selectPayedCartPage(LoginUser loginUser, OrderCursor cursor, int size);
+
+    CursorPageDTO<ICartDTO> selectPayedICartPage(LoginUser loginUser, OrderCursor cursor, int size);
 }
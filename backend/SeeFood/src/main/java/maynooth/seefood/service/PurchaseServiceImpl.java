@@ -1,24 +1,33 @@
 package maynooth.seefood.service;
 
 import lombok.extern.slf4j.Slf4j;
+import maynooth.seefood.index.IngredientDictionary;
 import maynooth.seefood.mapper.CartMapper;
 import maynooth.seefood.mapper.IngredientMapper;
-import maynooth.seefood.mapper.SeafoodMapper;
+import maynooth.seefood.mapper.LedgerMapper;
 import maynooth.seefood.mapper.UserMapper;
 import maynooth.seefood.pojo.DTO.CartDTO;
+import maynooth.seefood.pojo.DTO.CartUpdateDTO;
+import maynooth.seefood.pojo.DTO.CartUpdateResultDTO;
+import maynooth.seefood.pojo.DTO.CursorPageDTO;
 import maynooth.seefood.pojo.DTO.ICartDTO;
 import maynooth.seefood.pojo.PO.ICartPO;
 import maynooth.seefood.pojo.PO.IngredientPO;
-import maynooth.seefood.pojo.PO.UserPO;
+import maynooth.seefood.pojo.PO.LedgerPO;
 import maynooth.seefood.pojo.LoginUser;
+import maynooth.seefood.utils.OrderCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -31,31 +40,21 @@ public class PurchaseServiceImpl implements PurchaseService {
     @Autowired
     private IngredientMapper ingredientMapper;
     @Autowired
-    private SeafoodMapper seafoodMapper;
+    private LedgerMapper ledgerMapper;
+    @Autowired
+    private IngredientDictionary ingredientDictionary;
+    @Autowired
+    private CartStore cartStore;
 
     @Override
     public List<CartDTO> selectNoPayedCart(LoginUser loginUser) {
-        return cartMapper.selectNoPayedCart(loginUser.getUserId());
+        return cartStore.seafoodCart(loginUser.getUserId());
     }
 
+    //未付款按食材当前价格显示；食材从内存字典取
     @Override
     public List<ICartDTO> selectNopayedICart(LoginUser loginUser) {
-        List<ICartDTO> iCartDTOList = new ArrayList<>();
-        List<ICartPO> iCartPOs = ingredientMapper.selectNoPayedIngredients(loginUser.getUserId());
-        iCartPOs.forEach(iCartPO -> {
-            ICartDTO iCartDTO = new ICartDTO();
-            iCartDTO.setICartId(iCartPO.getICartId());
-//            int ingredientId = ingredientMapper.selectIngredientByCartId(iCartPO.getICartId());
-            int ingredientId = iCartPO.getIngredientId();
-            double ingredientPrice = ingredientMapper.selectIngredientById(ingredientId).getIngredientPrice();
-            iCartDTO.setIngredient(ingredientMapper.selectIngredientById(iCartPO.getIngredientId()));
-            iCartDTO.setPrice(ingredientPrice);
-            iCartDTO.setCount(iCartPO.getCount());
-            iCartDTO.setOrderTime(iCartPO.getOrderTime());
-            iCartDTOList.add(iCartDTO);
-            System.out.println(iCartDTO);
-        });
-        return iCartDTOList;
+        return hydrate(cartStore.ingredientCart(loginUser.getUserId()), true);
     }
 
 
@@ -64,184 +63,196 @@ public class PurchaseServiceImpl implements PurchaseService {
         return cartMapper.selectPayedCartByUserId(loginUser.getUserId());
     }
 
-    //海鲜加购物车
-    @Transactional
+    //海鲜加购物车，重复点击只会累加数量
     @Override
     public int addToCart(LoginUser loginUser, int seafoodId) {
-        long userId = loginUser.getUserId();
-        CartDTO cartDTO = cartMapper.selectWhetherBySeafoodId(seafoodId, userId);
-        double price = seafoodMapper.getSeafoodById(seafoodId).getCost();
-
-        if (cartDTO == null) {
-            CartDTO cartDTO1 = new CartDTO();
-            cartDTO1.setSeafoodId(seafoodId);
-            cartDTO1.setUserId(userId);
-            cartDTO1.setPrice(price);
-            System.out.println(cartDTO1);
-            return cartMapper.addToCart(cartDTO1);
-        } else {
-            return cartMapper.updateCart(cartDTO.getCartId(), 1);
-        }
+        return cartStore.addSeafood(loginUser.getUserId(), seafoodId);
     }
 
-    //更新海鲜数量
-    @Transactional
+    //更新海鲜数量，0 为删除；只能改自己未付款的购物车
     @Override
-    public int updateCount(int cartId, int count) {
-        if (count == 0) {
-            return cartMapper.deleteCart(cartId);
+    public int updateCount(LoginUser loginUser, int cartId, int count) {
+        if (count < 0) {
+            return 0;
         }
-        return cartMapper.updateCart(cartId, count);
+        return cartStore.updateSeafood(loginUser.getUserId(), cartId, count);
     }
 
+    /**
+     * 一次取出并占住所有购物车行，在内存里算总价，一次写入付款状态，扣款按全部行的总价。
+     * 有购物车不存在、不属于该用户或已付款时不扣款，返回 0；余额不足也返回 0，购物车不变。
+     * 余额用条件 update 扣减，不读余额也不锁用户行。
+     */
     @Override
     @Transactional
     public int goToPayCart(LoginUser loginUser, List<Integer> cartIdIds) {
-        double total1 = 0;
-        double total2 = 0;
-        for (Integer cartIdId : cartIdIds) {
-            total1 = cartMapper.selectCart(cartIdId).getCount() * cartMapper.selectCart(cartIdId).getPrice();
-            total2+=total1;
-            cartMapper.updatePrice(cartIdId, total1);
+        Set<Integer> cartIds = new LinkedHashSet<>(cartIdIds);
+        if (cartIds.isEmpty()) {
+            return 0;
         }
-        UserPO userPO = userMapper.selectUserByUserName(loginUser.getUsername());
-        if (userPO.getMoney() < total2) {
+        long userId = loginUser.getUserId();
+        List<CartDTO> carts = cartStore.reserveSeafood(userId, cartIds);
+        if (carts == null) {
             return 0;
-        } else {
-            //check balance
-            userMapper.updateMoney(loginUser.getUsername(), userPO.getMoney() - total1 );
-            //update cart pay
-            cartIdIds.forEach(cartId -> {
-                cartMapper.updatePayed(cartId, LocalDateTime.now());
-            });
+        }
+        boolean paid = false;
+        try {
+            double total = 0;
+            for (CartDTO cart : carts) {
+                total += cart.getCount() * cart.getPrice();
+            }
+            if (!debit(userId, total, LedgerPO.CART, cartIds)) {
+                return 0;
+            }
+            cartStore.completeSeafood(userId, carts, LocalDateTime.now());
+            paid = true;
             return 1;
+        } finally {
+            if (!paid) {
+                cartStore.releaseSeafood(userId, carts);
+            }
         }
     }
 
+    //与 goToPayCart 相同，按食材当前单价算总价，付款时写入每行总价
     @Override
     @Transactional
     public int goToPayICart(LoginUser loginUser, List<Integer> iCartIds) {
-        double total2 = 0;
-        double total3 = 0;
-        for (Integer iCartId : iCartIds) {
-            System.out.println("iCartId : "+iCartId);
-            IngredientPO ingredientPO = ingredientMapper.selectIngredientByICartId(iCartId);
-            System.out.println("IngredientPO: "+ingredientPO);
-            Integer count = ingredientMapper.selectIngredientCountFromCart(iCartId);
-            System.out.println("Count "+count);
-            double price = ingredientPO.getIngredientPrice();
-            total2 =  count *price;
-            total3 +=total2;
-            ingredientMapper.updatePrice(iCartId, total2);
+        Set<Integer> ids = new LinkedHashSet<>(iCartIds);
+        if (ids.isEmpty()) {
+            return 0;
         }
-        UserPO userPO = userMapper.selectUserByUserName(loginUser.getUsername());
-        if (userPO.getMoney() < total3) {
+        long userId = loginUser.getUserId();
+        List<ICartDTO> lines = cartStore.reserveIngredients(userId, ids);
+        if (lines == null) {
             return 0;
-        } else {
-            double money=userPO.getMoney() - total2;
-            //check balance
-            userMapper.updateMoney(loginUser.getUsername(), money );
-            iCartIds.forEach(iCartId -> {
-                ingredientMapper.updatePayed(iCartId, LocalDateTime.now());
-            });
+        }
+        boolean paid = false;
+        try {
+            double total = 0;
+            for (ICartDTO line : lines) {
+                total += line.getCount() * line.getPrice();
+            }
+            if (!debit(userId, total, LedgerPO.ICART, ids)) {
+                return 0;
+            }
+            lines.forEach(line -> line.setPrice(line.getCount() * line.getPrice()));
+            cartStore.completeIngredients(userId, lines, LocalDateTime.now());
+            paid = true;
             return 1;
+        } finally {
+            if (!paid) {
+                //放回时只用到数量
+                cartStore.releaseIngredients(userId, lines);
+            }
         }
-
     }
 
-    // 在类中添加日志记录器
-
+    //余额够才扣款并记一条流水，须在调用方的事务里执行
+    private boolean debit(long userId, double amount, String reason, Collection<Integer> ids) {
+        if (userMapper.debit(userId, amount) == 0) {
+            return false;
+        }
+        ledgerMapper.insertLedger(new LedgerPO(0, userId, -amount, reason,
+                ids.stream().map(String::valueOf).collect(Collectors.joining(",")), LocalDateTime.now()));
+        return true;
+    }
 
-    @Transactional
+    //食材加购物车：名称在内存字典里解析，新食材由字典插入，购物车一条 upsert
     @Override
     public int addIngredientToCart(LoginUser loginUser, IngredientPO ingredient) {
+        IngredientPO stored = ingredientDictionary.intern(ingredient);
+        return cartStore.addIngredient(loginUser.getUserId(), stored.getIngredientId());
+    }
 
-        log.info("========== addIngredientToCart 方法开始执行 ==========");
-        log.info("用户ID: {}", loginUser.getUserId());
-        log.info("食材名称: {}", ingredient.getIngredientName());
-
-        AtomicInteger a = new AtomicInteger();
-        long userId = loginUser.getUserId();
-        log.debug("提取用户ID: {}", userId);
-
-        // 检查食材表中的重复性
-        log.info("步骤1: 查询食材表中是否已存在同名食材");
-        Integer ingredientId = ingredientMapper.selectIngredientByIngredientName(ingredient.getIngredientName());
-        log.info("查询结果: 找到 {} 个同名食材", ingredientId);
-
-        if (ingredientId == null) {
-            log.info("分支1: 食材不存在，开始添加新食材");
-
-            // 添加新食材到 ingredient 表
-            log.debug("执行 addIngredient，参数: {}", ingredient);
-            ingredientMapper.addIngredient(ingredient);
-            log.info("食材添加成功，生成 ingredientId: {}", ingredient.getIngredientId());
-
-            // 将新食材添加到购物车
-            log.info("步骤2: 将新食材添加到用户购物车");
-            log.debug("执行 addIngredientToCart，ingredientId: {}, userId: {}", ingredient.getIngredientId(), userId);
-            int i = ingredientMapper.addIngredientToCart(ingredient.getIngredientId(), userId);
-            log.info("购物车ID为:{}",i);
-            log.info("食材成功加入购物车");
-
-        } else {
-            log.info("分支2: 食材已存在，跳过添加食材表");
-
-            // 检查购物车中是否已存在该食材
-            log.info("步骤2: 查询购物车中是否已存在该食材");
-            Integer iCartId = ingredientMapper.selectIngredientCartIdFromCart(ingredient.getIngredientName(), userId);
-            log.info("查询结果: iCartId = {}", iCartId);
-
-            if (iCartId == null) {
-                log.info("子分支2.1: 购物车中不存在，添加新条目");
-                Integer i  = ingredientMapper.selectIngredientByIngredientName(ingredient.getIngredientName());
-                // 需要先获取已存在的食材ID
-                log.debug("查询已存在食材的ID，食材名: {}", ingredient.getIngredientName());
-                // 注意：这里需要确保 ingredient.getIngredientId() 有值
-                // 如果前端没传，需要从数据库查询
-
-
-                int j = ingredientMapper.addIngredientToCart(i, userId);
-                log.info("购物车ID为:{}",j);
-                log.info("食材成功加入购物车");
+    //更新食材数量，0 为删除；只能改自己未付款的购物车
+    @Override
+    public int updateIngredientCart(LoginUser loginUser, int iCartId, int count) {
+        if (count < 0) {
+            return 0;
+        }
+        return cartStore.updateIngredient(loginUser.getUserId(), iCartId, count);
+    }
 
+    /**
+     * 购物车页面一次提交所有改动：在一个事务里批量执行，count 为 0 的删除。
+     * 格式不对的项不执行，标记为 invalid；其余项互不影响，各自返回 updated / deleted / not_found。
+     */
+    @Override
+    @Transactional
+    public List<CartUpdateResultDTO> updateCarts(LoginUser loginUser, List<CartUpdateDTO> updates) {
+        List<CartUpdateDTO> valid = updates.stream().filter(CartUpdateDTO::isValid).toList();
+        int[] counts = valid.isEmpty() ? new int[0] : cartStore.updateLines(loginUser.getUserId(), valid);
+        List<CartUpdateResultDTO> results = new ArrayList<>(updates.size());
+        int next = 0;
+        for (CartUpdateDTO update : updates) {
+            String status;
+            if (!update.isValid()) {
+                status = CartUpdateResultDTO.INVALID;
+            } else if (counts[next++] == 0) {
+                status = CartUpdateResultDTO.NOT_FOUND;
             } else {
-                log.info("子分支2.2: 购物车中已存在，更新数量");
-                log.debug("执行 updateCount，iCartId: {}, 增加数量: {}", iCartId, 1);
-                ingredientMapper.updateCount(iCartId, 1);
-                log.info("购物车数量更新成功");
+                status = update.getCount() == 0 ? CartUpdateResultDTO.DELETED : CartUpdateResultDTO.UPDATED;
             }
+            results.add(new CartUpdateResultDTO(update.getCartId(), update.getICartId(), update.getCount(), status));
         }
-        a.getAndIncrement();
-        log.info("方法执行完成，返回值: {}", a.get());
-        log.info("========== addIngredientToCart 方法结束 ==========");
-        return a.get();
+        return results;
     }
 
-    //更新食材数量
-    @Transactional
     @Override
-    public int updateIngredientCart(int iCartId, int count) {
-        if (count == 0) {
-            return ingredientMapper.deleteIngredientCart(iCartId);
+    public List<ICartDTO> selectPayedICart(LoginUser loginUser) {
+        return hydrate(ingredientMapper.selectPayedIngredients(loginUser.getUserId()), false);
+    }
+
+    /**
+     * 订单历史按 (orderTime, cartId) 倒序翻页，多查一行判断是否还有下一页，
+     * 每页的代价与历史订单总数无关
+     */
+    @Override
+    public CursorPageDTO<CartDTO> selectPayedCartPage(LoginUser loginUser, OrderCursor cursor, int size) {
+        List<CartDTO> rows = cartMapper.selectPayedCartPage(loginUser.getUserId(),
+                cursor == null ? null : cursor.orderTime(), cursor == null ? 0 : cursor.id(), size + 1);
+        String next = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            CartDTO last = rows.get(size - 1);
+            next = new OrderCursor(last.getOrderTime(), last.getCartId()).encode();
         }
-        return ingredientMapper.updateCount(iCartId, count);
+        return new CursorPageDTO<>(rows, next, size);
     }
 
     @Override
-    public List<ICartDTO> selectPayedICart(LoginUser loginUser) {
-        List<ICartDTO> iCartDTOList = new ArrayList<>();
-        List<ICartPO> iCartPOs = ingredientMapper.selectPayedIngredients(loginUser.getUserId());
-        iCartPOs.forEach(iCartPO -> {
-            ICartDTO iCartDTO = new ICartDTO();
-            iCartDTO.setICartId(iCartPO.getICartId());
-            iCartDTO.setIngredient(ingredientMapper.selectIngredientById(iCartPO.getIngredientId()));
-            iCartDTO.setPrice(iCartPO.getPrice());
-            iCartDTO.setCount(iCartPO.getCount());
-            iCartDTO.setOrderTime(iCartPO.getOrderTime());
-            iCartDTOList.add(iCartDTO);
-        });
-        return iCartDTOList;
+    public CursorPageDTO<ICartDTO> selectPayedICartPage(LoginUser loginUser, OrderCursor cursor, int size) {
+        List<ICartPO> rows = ingredientMapper.selectPayedIngredientPage(loginUser.getUserId(),
+                cursor == null ? null : cursor.orderTime(), cursor == null ? 0 : cursor.id(), size + 1);
+        String next = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            ICartPO last = rows.get(size - 1);
+            next = new OrderCursor(last.getOrderTime(), last.getICartId()).encode();
+        }
+        //游标按查出的行算，已删除的食材不显示时这一页会少于 size 条
+        return new CursorPageDTO<>(hydrate(rows, false), next, size);
+    }
+
+    /**
+     * 食材从内存字典取，字典里没有的一次查询补上；已删除的食材不显示
+     *
+     * @param currentPrice true 时价格取食材当前单价，否则取购物车行里存的总价
+     */
+    private List<ICartDTO> hydrate(List<ICartPO> rows, boolean currentPrice) {
+        Map<Integer, IngredientPO> ingredients = ingredientDictionary.getAll(
+                rows.stream().map(ICartPO::getIngredientId).collect(Collectors.toSet()));
+        List<ICartDTO> carts = new ArrayList<>(rows.size());
+        for (ICartPO row : rows) {
+            IngredientPO ingredient = ingredients.get(row.getIngredientId());
+            if (ingredient == null) {
+                continue;
+            }
+            carts.add(new ICartDTO(row.getICartId(), ingredient, row.getCount(),
+                    currentPrice ? ingredient.getIngredientPrice() : row.getPrice(), row.getOrderTime()));
+        }
+        return carts;
     }
 
 
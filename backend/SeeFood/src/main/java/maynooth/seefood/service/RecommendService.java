@@ -3,11 +3,13 @@ package maynooth.seefood.service;
 import lombok.RequiredArgsConstructor;
 import maynooth.seefood.mapper.RatingMapper;
 import maynooth.seefood.mapper.SeafoodMapper;
+import maynooth.seefood.pojo.DTO.SeafoodSummaryDTO;
 import maynooth.seefood.pojo.LoginUser;
 import maynooth.seefood.pojo.PO.RatingPO;
 import maynooth.seefood.pojo.PO.SeafoodPO;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,7 +27,10 @@ public class RecommendService {
 
 
     @Transactional(rollbackFor = Exception.class)
-    @CacheEvict(cacheNames = "recommendations", key = "#loginUser.userId")
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "recommendations", key = "#loginUser.userId"),
+            @CacheEvict(cacheNames = "recommendations", key = "'summary:' + #loginUser.userId")
+    })
     public boolean addUserBehavior(LoginUser loginUser, RatingPO ratingPO) {
         ratingPO.setUserId(loginUser.getUserId());
         // 1. 查询用户是否已对该物品有行为记录
@@ -126,6 +131,31 @@ public class RecommendService {
      */
     @Cacheable(cacheNames = "recommendations", key = "#userId")
     public List<SeafoodPO> recommendItems(Long userId, int topN) {
+        return rankItems(userId, topN).stream()
+                .map(seafoodMapper::getSeafoodById)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 同 recommendItems，但只查列表需要的列，一次 in 查询后按得分顺序排好
+     */
+    @Cacheable(cacheNames = "recommendations", key = "'summary:' + #userId")
+    public List<SeafoodSummaryDTO> recommendSummaries(Long userId, int topN) {
+        List<Integer> ranked = rankItems(userId, topN);
+        if (ranked.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Integer, SeafoodSummaryDTO> byId = seafoodMapper.getSummariesByIds(ranked).stream()
+                .collect(Collectors.toMap(SeafoodSummaryDTO::getSeafoodId, s -> s));
+        return ranked.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    //按得分降序返回推荐的物品ID
+    private List<Integer> rankItems(Long userId, int topN) {
         Map<Long, Map<Long, Double>> similarityMap = calculateWeightedJaccardSimilarity();
         if (!similarityMap.containsKey(userId)) {
             return Collections.emptyList();
@@ -167,12 +197,11 @@ public class RecommendService {
             }
         }
 
-        // 按得分降序取TopN并返回物品详情（物品ID为Integer）
+        // 按得分降序取TopN（物品ID为Integer）
         return itemScoreMap.entrySet().stream()
                 .sorted((e1, e2) -> Double.compare(e2.getValue(), e1.getValue()))
                 .limit(topN)
-                .map(entry -> seafoodMapper.getSeafoodById(entry.getKey()))
-                .filter(Objects::nonNull)
+                .map(Map.Entry::getKey)
                 .collect(Collectors.toList());
     }
 }
\ No newline at end of file
@@ -0,0 +1,323 @@
+package maynooth.seefood.service;
+
+import lombok.extern.slf4j.Slf4j;
+import maynooth.seefood.index.IngredientDictionary;
+import maynooth.seefood.index.SeafoodCatalog;
+import maynooth.seefood.mapper.CartMapper;
+import maynooth.seefood.mapper.IngredientMapper;
+import maynooth.seefood.mapper.SeafoodMapper;
+import maynooth.seefood.pojo.DTO.CartDTO;
+import maynooth.seefood.pojo.DTO.CartUpdateDTO;
+import maynooth.seefood.pojo.DTO.ICartDTO;
+import maynooth.seefood.pojo.PO.ICartPO;
+import maynooth.seefood.pojo.PO.IngredientPO;
+import maynooth.seefood.pojo.PO.SeafoodPO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 未付款购物车存在 Redis 里：key 为 seefood:cart:{userId}:seafood / :ingredient 的 hash，field 为商品 ID，值为数量。
+ * 每次增减都是一条脚本（HINCRBY / HSET 并续期），不走 MySQL 事务；行 ID 就是商品 ID。
+ * <p>
+ * 结账时用脚本把要付款的 field 一次取出并删掉，其它结账请求拿不到；付款成功后在同一个事务里批量插入
+ * 已付款的订单行，付款失败或事务回滚时把数量加回去。
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "seefood.cart.store", havingValue = "redis")
+public class RedisCartStore implements CartStore {
+
+    private static final String PREFIX = "seefood:cart:";
+
+    private static final DefaultRedisScript<Long> ADD = new DefaultRedisScript<>(
+            "local n = redis.call('hincrby', KEYS[1], ARGV[1], 1) " +
+            "redis.call('pexpire', KEYS[1], ARGV[2]) return n", Long.class);
+    //只改已有的行，数量为 0 时删除
+    private static final DefaultRedisScript<Long> UPDATE = new DefaultRedisScript<>(
+            "if redis.call('hexists', KEYS[1], ARGV[1]) == 0 then return 0 end " +
+            "if tonumber(ARGV[2]) == 0 then redis.call('hdel', KEYS[1], ARGV[1]) " +
+            "else redis.call('hset', KEYS[1], ARGV[1], ARGV[2]) end " +
+            "redis.call('pexpire', KEYS[1], ARGV[3]) return 1", Long.class);
+    //KEYS 为海鲜、食材两个 hash；ARGV 为 ttl 以及成对的 field（s: / i: 前缀区分 hash）、数量，逐项同 UPDATE
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> BULK_UPDATE = new DefaultRedisScript<>(
+            "local results = {} local touched = {} " +
+            "for i = 2, #ARGV, 2 do " +
+            "local k = string.sub(ARGV[i], 1, 1) == 's' and 1 or 2 local key = KEYS[k] local field = string.sub(ARGV[i], 3) " +
+            "if redis.call('hexists', key, field) == 0 then results[#results + 1] = 0 else " +
+            "if tonumber(ARGV[i + 1]) == 0 then redis.call('hdel', key, field) " +
+            "else redis.call('hset', key, field, ARGV[i + 1]) end " +
+            "touched[k] = true results[#results + 1] = 1 end end " +
+            "for k in pairs(touched) do redis.call('pexpire', KEYS[k], ARGV[1]) end " +
+            "return results", List.class);
+    //全部存在才取出并删除，返回各自的数量；有一个不存在就什么也不做，返回空
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> CLAIM = new DefaultRedisScript<>(
+            "local counts = redis.call('hmget', KEYS[1], unpack(ARGV)) " +
+            "for i = 1, #counts do if not counts[i] then return {} end end " +
+            "redis.call('hdel', KEYS[1], unpack(ARGV)) return counts", List.class);
+    //ARGV 为 ttl 以及成对的 field、数量
+    private static final DefaultRedisScript<Long> RESTORE = new DefaultRedisScript<>(
+            "for i = 2, #ARGV, 2 do redis.call('hincrby', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+            "redis.call('pexpire', KEYS[1], ARGV[1]) return 1", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final SeafoodCatalog seafoodCatalog;
+    private final SeafoodMapper seafoodMapper;
+    private final IngredientDictionary ingredientDictionary;
+    private final CartMapper cartMapper;
+    private final IngredientMapper ingredientMapper;
+    private final Duration ttl;
+
+    /**
+     * @param ttl 购物车最后一次改动后保留多久
+     */
+    public RedisCartStore(StringRedisTemplate redisTemplate, SeafoodCatalog seafoodCatalog, SeafoodMapper seafoodMapper,
+                          IngredientDictionary ingredientDictionary, CartMapper cartMapper, IngredientMapper ingredientMapper,
+                          @Value("${seefood.cart.ttl:30d}") Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.seafoodCatalog = seafoodCatalog;
+        this.seafoodMapper = seafoodMapper;
+        this.ingredientDictionary = ingredientDictionary;
+        this.cartMapper = cartMapper;
+        this.ingredientMapper = ingredientMapper;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public int addSeafood(long userId, int seafoodId) {
+        if (seafoodPrices(List.of(seafoodId)).isEmpty()) {
+            return 0;
+        }
+        redisTemplate.execute(ADD, List.of(seafoodKey(userId)), String.valueOf(seafoodId), ttlMillis());
+        return 1;
+    }
+
+    @Override
+    public int addIngredient(long userId, int ingredientId) {
+        redisTemplate.execute(ADD, List.of(ingredientKey(userId)), String.valueOf(ingredientId), ttlMillis());
+        return 1;
+    }
+
+    @Override
+    public int updateSeafood(long userId, int cartId, int count) {
+        return update(seafoodKey(userId), cartId, count);
+    }
+
+    @Override
+    public int updateIngredient(long userId, int iCartId, int count) {
+        return update(ingredientKey(userId), iCartId, count);
+    }
+
+    //一条脚本改完，原子执行，不需要 MySQL 事务
+    @Override
+    @SuppressWarnings("unchecked")
+    public int[] updateLines(long userId, List<CartUpdateDTO> updates) {
+        if (updates.isEmpty()) {
+            return new int[0];
+        }
+        List<String> args = new ArrayList<>();
+        args.add(ttlMillis());
+        updates.forEach(update -> {
+            args.add(update.isSeafood() ? "s:" + update.getCartId() : "i:" + update.getICartId());
+            args.add(String.valueOf(update.getCount()));
+        });
+        List<Object> results = redisTemplate.execute(BULK_UPDATE, List.of(seafoodKey(userId), ingredientKey(userId)), args.toArray());
+        int[] counts = new int[updates.size()];
+        for (int i = 0; i < counts.length && results != null && i < results.size(); i++) {
+            counts[i] = ((Number) results.get(i)).intValue();
+        }
+        return counts;
+    }
+
+    @Override
+    public List<CartDTO> seafoodCart(long userId) {
+        Map<Integer, Integer> counts = entries(seafoodKey(userId));
+        Map<Integer, Double> prices = seafoodPrices(counts.keySet());
+        List<CartDTO> carts = new ArrayList<>();
+        // 已下架的海鲜不显示
+        counts.forEach((seafoodId, count) -> {
+            Double price = prices.get(seafoodId);
+            if (price != null) {
+                carts.add(new CartDTO(seafoodId, userId, seafoodId, count, false, price, null));
+            }
+        });
+        return carts;
+    }
+
+    @Override
+    public List<ICartPO> ingredientCart(long userId) {
+        List<ICartPO> rows = new ArrayList<>();
+        entries(ingredientKey(userId)).forEach((ingredientId, count) -> {
+            ICartPO row = new ICartPO();
+            row.setICartId(ingredientId);
+            row.setIngredientId(ingredientId);
+            row.setUserId(userId);
+            row.setCount(count);
+            rows.add(row);
+        });
+        return rows;
+    }
+
+    @Override
+    public List<CartDTO> reserveSeafood(long userId, Collection<Integer> cartIds) {
+        Map<Integer, Integer> counts = claim(seafoodKey(userId), cartIds);
+        if (counts == null) {
+            return null;
+        }
+        Map<Integer, Double> prices = seafoodPrices(counts.keySet());
+        List<CartDTO> lines = new ArrayList<>();
+        counts.forEach((seafoodId, count) ->
+                lines.add(new CartDTO(seafoodId, userId, seafoodId, count, false, prices.getOrDefault(seafoodId, -1.0), null)));
+        if (prices.size() != counts.size()) {
+            releaseSeafood(userId, lines);
+            return null;
+        }
+        return lines;
+    }
+
+    @Override
+    public List<ICartDTO> reserveIngredients(long userId, Collection<Integer> iCartIds) {
+        Map<Integer, Integer> counts = claim(ingredientKey(userId), iCartIds);
+        if (counts == null) {
+            return null;
+        }
+        Map<Integer, IngredientPO> ingredients = ingredientDictionary.getAll(counts.keySet());
+        List<ICartDTO> lines = new ArrayList<>();
+        counts.forEach((ingredientId, count) -> {
+            IngredientPO ingredient = ingredients.get(ingredientId);
+            lines.add(new ICartDTO(ingredientId, ingredient, count, ingredient == null ? -1 : ingredient.getIngredientPrice(), null));
+        });
+        if (ingredients.size() != counts.size()) {
+            releaseIngredients(userId, lines);
+            return null;
+        }
+        return lines;
+    }
+
+    @Override
+    public void releaseSeafood(long userId, List<CartDTO> lines) {
+        Map<Integer, Integer> counts = new LinkedHashMap<>();
+        lines.forEach(line -> counts.put(line.getSeafoodId(), line.getCount()));
+        restore(seafoodKey(userId), counts);
+    }
+
+    @Override
+    public void releaseIngredients(long userId, List<ICartDTO> lines) {
+        Map<Integer, Integer> counts = new LinkedHashMap<>();
+        lines.forEach(line -> counts.put(line.getICartId(), line.getCount()));
+        restore(ingredientKey(userId), counts);
+    }
+
+    @Override
+    public void completeSeafood(long userId, List<CartDTO> lines, LocalDateTime orderTime) {
+        cartMapper.insertPaidCarts(userId, lines, orderTime);
+        onRollback(() -> releaseSeafood(userId, lines));
+    }
+
+    @Override
+    public void completeIngredients(long userId, List<ICartDTO> lines, LocalDateTime orderTime) {
+        ingredientMapper.insertPaidICarts(userId, lines, orderTime);
+        onRollback(() -> releaseIngredients(userId, lines));
+    }
+
+    private int update(String key, int itemId, int count) {
+        Long updated = redisTemplate.execute(UPDATE, List.of(key), String.valueOf(itemId), String.valueOf(count), ttlMillis());
+        return updated == null ? 0 : updated.intValue();
+    }
+
+    private Map<Integer, Integer> entries(String key) {
+        Map<Integer, Integer> counts = new TreeMap<>();
+        redisTemplate.<String, String>opsForHash().entries(key)
+                .forEach((field, count) -> counts.put(Integer.valueOf(field), Integer.valueOf(count)));
+        return counts;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Integer, Integer> claim(String key, Collection<Integer> ids) {
+        List<Integer> fields = new ArrayList<>(ids);
+        List<Object> counts = redisTemplate.execute(CLAIM, List.of(key), fields.stream().map(String::valueOf).toArray());
+        if (counts == null || counts.size() != fields.size()) {
+            return null;
+        }
+        Map<Integer, Integer> claimed = new LinkedHashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            claimed.put(fields.get(i), Integer.valueOf(String.valueOf(counts.get(i))));
+        }
+        return claimed;
+    }
+
+    private void restore(String key, Map<Integer, Integer> counts) {
+        if (counts.isEmpty()) {
+            return;
+        }
+        List<String> args = new ArrayList<>();
+        args.add(ttlMillis());
+        counts.forEach((id, count) -> {
+            args.add(String.valueOf(id));
+            args.add(String.valueOf(count));
+        });
+        try {
+            redisTemplate.execute(RESTORE, List.of(key), args.toArray());
+        } catch (Exception e) {
+            log.error("Failed to return {} to cart {}: {}", counts, key, e.toString());
+        }
+    }
+
+    //事务没有提交成功时执行；不在事务里时订单行已经写入，不需要回退
+    private static void onRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    //海鲜单价，优先从内存目录取；不存在的海鲜不在结果里
+    private Map<Integer, Double> seafoodPrices(Collection<Integer> seafoodIds) {
+        Map<Integer, Double> prices = new HashMap<>();
+        if (seafoodIds.isEmpty()) {
+            return prices;
+        }
+        List<Integer> missing = new ArrayList<>();
+        for (Integer seafoodId : seafoodIds) {
+            SeafoodPO seafood = seafoodCatalog.isReady() ? seafoodCatalog.get(seafoodId) : null;
+            if (seafood != null) {
+                prices.put(seafoodId, seafood.getCost());
+            } else {
+                missing.add(seafoodId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            seafoodMapper.getSummariesByIds(missing).forEach(summary -> prices.put(summary.getSeafoodId(), summary.getCost()));
+        }
+        return prices;
+    }
+
+    private String ttlMillis() {
+        return String.valueOf(ttl.toMillis());
+    }
+
+    private static String seafoodKey(long userId) {
+        return PREFIX + userId + ":seafood";
+    }
+
+    private static String ingredientKey(long userId) {
+        return PREFIX + userId + ":ingredient";
+    }
+}
@@ -1,8 +1,12 @@
 package maynooth.seefood.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import maynooth.seefood.pojo.DTO.PageDTO;
+import maynooth.seefood.pojo.DTO.SeafoodSummaryDTO;
 import maynooth.seefood.pojo.PO.SeafoodPO;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface SeafoodService {
@@ -12,5 +16,18 @@ public interface SeafoodService {
 
     List<SeafoodPO> getTop() throws JsonProcessingException;
 
+    List<SeafoodSummaryDTO> getTopSummaries();
+
+    //流式导出的名额，拿到后必须调用 endStream 归还；名额用完时返回 false
+    boolean tryStartStream();
+
+    void endStream();
+
+    //把热门列表按 Result 的格式逐行写出，不在内存里组装整个列表
+    void writeTop(OutputStream out) throws IOException;
+
     List<SeafoodPO> getSeafoodsBySeason(int month) throws JsonProcessingException;
+
+    //all: 全部包含, any: 包含其一, none: 都不包含
+    PageDTO<SeafoodPO> getSeafoodsByTags(List<String> all, List<String> any, List<String> none, int page, int size);
 }
@@ -1,40 +1,144 @@
 package maynooth.seefood.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import maynooth.seefood.index.SeafoodCatalog;
+import maynooth.seefood.index.SeasonIndex;
+import maynooth.seefood.index.TagIndex;
 import maynooth.seefood.mapper.SeafoodMapper;
+import maynooth.seefood.pojo.DTO.PageDTO;
+import maynooth.seefood.pojo.DTO.SeafoodSummaryDTO;
 import maynooth.seefood.pojo.PO.SeafoodPO;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
 
 @Service
 public class SeafoodServiceImpl implements SeafoodService {
 
     @Autowired
     SeafoodMapper seafoodMapper;
+    @Autowired
+    SeafoodCatalog seafoodCatalog;
+    @Autowired
+    SeasonIndex seasonIndex;
+    @Autowired
+    TagIndex tagIndex;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    //每个流式导出在写完之前一直占着一个数据库连接，限制同时进行的数量，免得慢客户端占满连接池
+    private final Semaphore streams;
+
+    public SeafoodServiceImpl(@Value("${seefood.seafood.stream.max-concurrent:4}") int maxStreams) {
+        this.streams = new Semaphore(maxStreams);
+    }
 
     @Override
     @Caching(evict = {
             @CacheEvict(cacheNames = "seafood:top", key = "'popular'", beforeInvocation = false),
+            @CacheEvict(cacheNames = "seafood:top", key = "'popular:summary'"),
             @CacheEvict(cacheNames = "item:detail", key = "#seafoodId")
     })
     public int putViews(int seafoodId) {
-        return seafoodMapper.putViews(seafoodId);
+        int rows = seafoodMapper.putViews(seafoodId);
+        if (rows > 0) {
+            seafoodCatalog.incrementViews(seafoodId);
+        }
+        return rows;
     }
 
     // 获取热门商品
     @Override
-    @Cacheable(cacheNames = "seafood:top", key = "'popular'")
+    @Cacheable(cacheNames = "seafood:top", key = "'popular'", sync = true)
     public List<SeafoodPO> getTop() {
         return seafoodMapper.getSeafoodInPopularity();
     }
 
+    // 热门列表摘要，单独缓存，只含列表页需要的列
+    @Override
+    @Cacheable(cacheNames = "seafood:top", key = "'popular:summary'", sync = true)
+    public List<SeafoodSummaryDTO> getTopSummaries() {
+        return seafoodMapper.getSummariesInPopularity();
+    }
+
+    @Override
+    public boolean tryStartStream() {
+        return streams.tryAcquire();
+    }
+
+    @Override
+    public void endStream() {
+        streams.release();
+    }
+
+    // 游标要在事务里才能保持连接打开；每行读出后立即写出，内存里只有当前这一行
+    @Override
+    @Transactional(readOnly = true)
+    public void writeTop(OutputStream out) throws IOException {
+        try (Cursor<SeafoodPO> cursor = seafoodMapper.streamSeafoodInPopularity();
+             JsonGenerator generator = objectMapper.createGenerator(out)) {
+            // 输出流由 Spring MVC 负责关闭
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeNumberField("code", 200);
+            generator.writeStringField("message", "Successful");
+            generator.writeArrayFieldStart("data");
+            for (SeafoodPO seafood : cursor) {
+                generator.writeObject(seafood);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    // 时令海鲜直接走内存索引，目录未加载成功时才查库
     @Override
-    @Cacheable(cacheNames = "seafood:season", key = "#month")
     public List<SeafoodPO> getSeafoodsBySeason(int month){
+        if (seafoodCatalog.isReady()) {
+            return seasonIndex.get(month);
+        }
         return seafoodMapper.getSeafoodBySeason(month);
     }
+
+    @Override
+    public PageDTO<SeafoodPO> getSeafoodsByTags(List<String> all, List<String> any, List<String> none, int page, int size) {
+        if (!seafoodCatalog.isReady()) {
+            return getSeafoodsByTagsFromDb(all, any, none, page, size);
+        }
+        long[] matched = tagIndex.query(all, any, none);
+        // page 很大时 int 相乘会溢出，按 long 算；超出结果数时 page() 返回空页
+        List<SeafoodPO> items = TagIndex.page(matched, (long) page * size, size).stream()
+                .map(seafoodCatalog::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageDTO<>(items, TagIndex.cardinality(matched), page, size);
+    }
+
+    // 目录未加载时的兜底：全表读出后按同样的规则过滤
+    private PageDTO<SeafoodPO> getSeafoodsByTagsFromDb(List<String> all, List<String> any, List<String> none, int page, int size) {
+        List<SeafoodPO> matched = seafoodMapper.getSeafoodInPopularity().stream()
+                .filter(seafood -> {
+                    Set<String> tags = TagIndex.parseTags(seafood.getTags());
+                    return all.stream().map(TagIndex::normalize).allMatch(tags::contains)
+                            && (any.isEmpty() || any.stream().map(TagIndex::normalize).anyMatch(tags::contains))
+                            && none.stream().map(TagIndex::normalize).noneMatch(tags::contains);
+                })
+                .sorted((a, b) -> a.getSeafoodId().compareTo(b.getSeafoodId()))
+                .toList();
+        List<SeafoodPO> items = matched.stream().skip((long) page * size).limit(size).toList();
+        return new PageDTO<>(items, matched.size(), page, size);
+    }
 }
@@ -2,6 +2,7 @@ package maynooth.seefood.service;
 
 import maynooth.seefood.pojo.DTO.UserDTO;
 import maynooth.seefood.pojo.LoginUser;
+import maynooth.seefood.pojo.DTO.SeafoodSummaryDTO;
 import maynooth.seefood.pojo.PO.SeafoodPO;
 import maynooth.seefood.pojo.Result;
 import maynooth.seefood.pojo.PO.UserPO;
@@ -14,6 +15,8 @@ public interface UserService {
 
     List<SeafoodPO> getLikes(long userId);
 
+    List<SeafoodSummaryDTO> getLikeSummaries(long userId);
+
     UserPO selectUserByUserName(String username);
 
 //    List<SeafoodPO> getPersonal(LoginUser loginUser);
@@ -6,6 +6,7 @@ import maynooth.seefood.mapper.SeafoodMapper;
 import maynooth.seefood.mapper.UserMapper;
 import maynooth.seefood.pojo.DTO.UserDTO;
 import maynooth.seefood.pojo.LoginUser;
+import maynooth.seefood.pojo.DTO.SeafoodSummaryDTO;
 import maynooth.seefood.pojo.PO.SeafoodPO;
 import maynooth.seefood.pojo.Result;
 import maynooth.seefood.pojo.PO.UserPO;
@@ -95,6 +96,11 @@ public class UserServiceImpl implements UserService {
         return userMapper.getLike(userId);
     }
 
+    @Override
+    public List<SeafoodSummaryDTO> getLikeSummaries(long userId) {
+        return userMapper.getLikeSummaries(userId);
+    }
+
     @Override
     public UserPO selectUserByUserName(String username) {
         return userMapper.selectUserByUserName(username);
@@ -0,0 +1,78 @@
+package maynooth.seefood.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+public class ImageUtil {
+
+    //sniffContentType 认不出的格式
+    public static final String UNKNOWN_TYPE = "application/octet-stream";
+
+    private static final Pattern IMAGE_REF = Pattern.compile("^[0-9a-f]{64}$");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * 是否已经是图片引用（64位小写十六进制的 SHA-256）
+     */
+    public static boolean isImageRef(String value) {
+        return value != null && IMAGE_REF.matcher(value).matches();
+    }
+
+    /**
+     * 解码图片：兼容 {"base64":"..."} 包装、Data URI 前缀和纯 Base64
+     *
+     * @throws IllegalArgumentException 去掉空白后不是合法的 Base64
+     */
+    public static byte[] decodeBase64Image(String encoded) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("Base64 image is empty");
+        }
+        String cleaned = encoded.trim();
+        int quote = cleaned.indexOf("\"base64\"");
+        if (cleaned.startsWith("{") && quote >= 0) {
+            int start = cleaned.indexOf('"', cleaned.indexOf(':', quote) + 1);
+            int end = cleaned.indexOf('"', start + 1);
+            if (start >= 0 && end > start) {
+                cleaned = cleaned.substring(start + 1, end);
+            }
+        }
+        int comma = cleaned.indexOf(',');
+        if (cleaned.startsWith("data:") && comma >= 0) {
+            cleaned = cleaned.substring(comma + 1);
+        }
+        // 严格解码：MIME 解码器会跳过非 Base64 字符，URL 之类的值也能"解码"出一堆字节
+        return Base64.getDecoder().decode(WHITESPACE.matcher(cleaned).replaceAll("").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static String sha256Hex(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 根据文件头判断图片类型
+     */
+    public static String sniffContentType(byte[] head) {
+        if (head.length >= 3 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xD8 && (head[2] & 0xFF) == 0xFF) {
+            return "image/jpeg";
+        }
+        if (head.length >= 8 && (head[0] & 0xFF) == 0x89 && head[1] == 'P' && head[2] == 'N' && head[3] == 'G') {
+            return "image/png";
+        }
+        if (head.length >= 6 && head[0] == 'G' && head[1] == 'I' && head[2] == 'F') {
+            return "image/gif";
+        }
+        if (head.length >= 12 && head[0] == 'R' && head[1] == 'I' && head[2] == 'F' && head[3] == 'F'
+                && head[8] == 'W' && head[9] == 'E' && head[10] == 'B' && head[11] == 'P') {
+            return "image/webp";
+        }
+        return UNKNOWN_TYPE;
+    }
+}
@@ -0,0 +1,45 @@
+package maynooth.seefood.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * 订单历史的翻页游标：上一页最后一行的 (orderTime, 行 ID)，编码成 URL 安全的 Base64，客户端原样带回
+ *
+ * @param orderTime 上一页最后一行的付款时间
+ * @param id        上一页最后一行的 cartId / iCartId
+ */
+public record OrderCursor(LocalDateTime orderTime, int id) {
+
+    //没有付款时间的行不参与翻页，游标里的时间一定有值，否则编码出来的 "null|id" 解码不了
+    public OrderCursor {
+        Objects.requireNonNull(orderTime, "orderTime");
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((orderTime + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return token 为空时返回 null，表示第一页
+     * @throws IllegalArgumentException token 不是本类生成的
+     */
+    public static OrderCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new OrderCursor(LocalDateTime.parse(parts[0]), Integer.parseInt(parts[1]));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+}
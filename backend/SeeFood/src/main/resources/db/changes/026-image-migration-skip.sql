@@ -0,0 +1,9 @@
+-- 启动时迁移内联图片时转换不了的行（外部 URL、解码出来不是图片的值），记下来以后不再读取
+create table if not exists image_migration_skip
+(
+    tableName varchar(16)  not null,
+    rowId     bigint       not null,
+    reason    varchar(255) null,
+    skippedAt datetime     not null,
+    primary key (tableName, rowId)
+);
@@ -0,0 +1,11 @@
+-- 余额流水：每次扣款一条，amount 为负数；reference 记录付款的购物车 ID
+create table if not exists balance_ledger
+(
+    ledgerId  bigint auto_increment primary key,
+    userId    bigint       not null,
+    amount    double       not null,
+    reason    varchar(16)  not null,
+    reference varchar(1024) null,
+    createdAt datetime     not null,
+    index idx_ledger_user (userId, createdAt)
+);
@@ -0,0 +1,41 @@
+-- 同一用户同一商品只保留一行未付款的购物车，同名食材只保留一条，供 insert ... on duplicate key update 使用
+-- 已付款的行可以重复，唯一键建在只对未付款行有值的生成列上（null 不参与唯一约束）
+
+-- 1. 合并同名食材，购物车指向最早的那条
+update ingredientcart c
+    join ingredient i on i.ingredientId = c.ingredientId
+    join (select ingredientName, min(ingredientId) as keepId from ingredient group by ingredientName having count(*) > 1) d
+    on d.ingredientName = i.ingredientName
+set c.ingredientId = d.keepId;
+delete i from ingredient i
+    join (select ingredientName, min(ingredientId) as keepId from ingredient group by ingredientName having count(*) > 1) d
+    on d.ingredientName = i.ingredientName and i.ingredientId <> d.keepId;
+alter table ingredient add unique key uk_ingredient_name (ingredientName);
+
+-- 2. 合并重复的未付款海鲜购物车行，数量加到最早的一行
+update cart c
+    join (select min(cartId) as keepId, sum(count) as total from cart where payed = false
+          group by userId, seafoodId having count(*) > 1) d
+    on c.cartId = d.keepId
+set c.count = d.total;
+delete c from cart c
+    join (select userId, seafoodId, min(cartId) as keepId from cart where payed = false
+          group by userId, seafoodId having count(*) > 1) d
+    on c.userId = d.userId and c.seafoodId = d.seafoodId and c.payed = false and c.cartId <> d.keepId;
+alter table cart
+    add column unpaidSeafoodId int as (if(payed, null, seafoodId)) stored,
+    add unique key uk_cart_unpaid (userId, unpaidSeafoodId);
+
+-- 3. 食材购物车同上
+update ingredientcart c
+    join (select min(iCartId) as keepId, sum(count) as total from ingredientcart where payed = false
+          group by userId, ingredientId having count(*) > 1) d
+    on c.iCartId = d.keepId
+set c.count = d.total;
+delete c from ingredientcart c
+    join (select userId, ingredientId, min(iCartId) as keepId from ingredientcart where payed = false
+          group by userId, ingredientId having count(*) > 1) d
+    on c.userId = d.userId and c.ingredientId = d.ingredientId and c.payed = false and c.iCartId <> d.keepId;
+alter table ingredientcart
+    add column unpaidIngredientId int as (if(payed, null, ingredientId)) stored,
+    add unique key uk_icart_unpaid (userId, unpaidIngredientId);
@@ -0,0 +1,4 @@
+-- 订单历史按 (orderTime, 主键) 倒序翻页：where userId = ? and payed = true and (orderTime, id) < 游标 order by orderTime desc, id desc limit n
+-- InnoDB 二级索引自带主键，(userId, payed, orderTime) 实际按 (userId, payed, orderTime, id) 排序，每页只扫 n + 1 行，不用 filesort
+alter table cart add index idx_cart_user_orders (userId, payed, orderTime);
+alter table ingredientcart add index idx_icart_user_orders (userId, payed, orderTime);
@@ -0,0 +1,92 @@
+package maynooth.seefood.cache;
+
+import maynooth.seefood.pojo.DTO.ItemDTO;
+import maynooth.seefood.pojo.PO.RecipePO;
+import maynooth.seefood.pojo.PO.SeafoodPO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactRedisSerializerTest {
+
+    private final CompactRedisSerializer compact = new CompactRedisSerializer(512);
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+
+    private static ItemDTO item(int id) {
+        SeafoodPO seafood = new SeafoodPO(id, "Atlantic Salmon " + id, "Rich, oily fish from the North Atlantic, great grilled or raw.",
+                "3f7b1c9d2e4a6f8b0c1d3e5f7a9b2c4d6e8f0a1b3c5d7e9f1a2b4c6d8e0f2a4b", 120, 6, "FISH,OILY,SASHIMI", 18.5);
+        List<RecipePO> recipes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            recipes.add(new RecipePO(id * 10 + i, "Recipe " + i, "Pan-sear skin side down for four minutes, flip and baste with butter.",
+                    "9a8b7c6d5e4f3a2b1c0d9e8f7a6b5c4d3e2f1a0b9c8d7e6f5a4b3c2d1e0f9a8b"));
+        }
+        return new ItemDTO(id, recipes, seafood);
+    }
+
+    private static List<SeafoodPO> top(int size) {
+        List<SeafoodPO> seafoods = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            seafoods.add(item(i).getSeafoodPO());
+        }
+        return seafoods;
+    }
+
+    @Test
+    void roundTripsSmallAndCompressedValues() {
+        ItemDTO item = item(1);
+        byte[] small = compact.serialize(item);
+        assertEquals(item, compact.deserialize(small));
+
+        List<SeafoodPO> seafoods = top(100);
+        byte[] large = compact.serialize(seafoods);
+        assertEquals(seafoods, compact.deserialize(large));
+        assertTrue(large.length < json.serialize(seafoods).length / 3);
+
+        CacheEnvelope envelope = new CacheEnvelope(seafoods, 42L);
+        assertEquals(envelope, compact.deserialize(compact.serialize(envelope)));
+    }
+
+    @Test
+    void readsValuesWrittenByJsonSerializer() {
+        ItemDTO item = item(2);
+        assertEquals(item, compact.deserialize(json.serialize(item)));
+        assertNull(compact.deserialize(new byte[0]));
+    }
+
+    //mvn test -Dtest=CompactRedisSerializerTest -Dbenchmark=true
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmark() {
+        for (Object value : List.of(item(1), top(100))) {
+            report("json", json, value);
+            report("compact", compact, value);
+        }
+    }
+
+    private static void report(String name, RedisSerializer<Object> serializer, Object value) {
+        byte[] bytes = serializer.serialize(value);
+        int iterations = 20000;
+        // 预热，让 JIT 编译完再计时
+        for (int i = 0; i < iterations * 3; i++) {
+            serializer.deserialize(serializer.serialize(value));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            bytes = serializer.serialize(value);
+        }
+        long serialize = (System.nanoTime() - start) / iterations;
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            serializer.deserialize(bytes);
+        }
+        long deserialize = (System.nanoTime() - start) / iterations;
+        System.out.printf("%-8s %-8s %7d bytes  serialize %7d ns/op  deserialize %7d ns/op%n",
+                name, value.getClass().getSimpleName(), bytes.length, serialize, deserialize);
+    }
+}
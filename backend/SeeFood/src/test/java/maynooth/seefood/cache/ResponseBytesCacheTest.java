@@ -0,0 +1,71 @@
+package maynooth.seefood.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import maynooth.seefood.event.CatalogChangedEvent;
+import maynooth.seefood.pojo.Result;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseBytesCacheTest {
+
+    private final TwoLevelCacheManager manager = new TwoLevelCacheManager(new ConcurrentMapCacheManager(),
+            new StringRedisTemplate(), List.of("item:detail"), 1 << 20, Duration.ofMinutes(1),
+            new GenericJackson2JsonRedisSerializer(), Map.of());
+    private final ResponseBytesCache cache = new ResponseBytesCache(new ObjectMapper(), manager, 1 << 20, Duration.ofMinutes(1));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private String write(String group, Object key, String acceptEncoding, MockHttpServletResponse response) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (acceptEncoding != null) {
+            request.addHeader("Accept-Encoding", acceptEncoding);
+        }
+        cache.write(group, key, () -> new Result(200, "success", "v" + loads.incrementAndGet()), request, response);
+        return response.getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void servesCachedBytesUntilCacheEvicted() throws Exception {
+        manager.setSubscribed(true);
+        assertEquals("{\"code\":200,\"message\":\"success\",\"data\":\"v1\"}", write("item:detail", 1, null, new MockHttpServletResponse()));
+        assertTrue(write("item:detail", 1, null, new MockHttpServletResponse()).contains("v1"));
+
+        manager.getCache("item:detail").evict(1);
+        assertTrue(write("item:detail", 1, null, new MockHttpServletResponse()).contains("v2"));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void seasonGroupFollowsCatalogAndLargeBodiesAreGzipped() throws Exception {
+        String big = String.join("", Collections.nCopies(2000, "x"));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Accept-Encoding", "gzip, deflate");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        cache.write(ResponseBytesCache.SEASON, 6, () -> new Result(200, "Success", big), request, response);
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        byte[] json = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray())).readAllBytes();
+        assertTrue(new String(json, StandardCharsets.UTF_8).contains(big));
+
+        //未订阅时只有时令分组会缓存
+        write(ResponseBytesCache.SEASON, 7, null, new MockHttpServletResponse());
+        write(ResponseBytesCache.SEASON, 7, null, new MockHttpServletResponse());
+        assertEquals(1, loads.get());
+        cache.onCatalogChanged(new CatalogChangedEvent(null));
+        assertTrue(write(ResponseBytesCache.SEASON, 7, null, new MockHttpServletResponse()).contains("v2"));
+    }
+}
@@ -0,0 +1,119 @@
+package maynooth.seefood.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TwoLevelCacheManagerTest {
+
+    //用内存 CacheManager 代替 Redis 做二级缓存，广播会失败但不影响本地逻辑
+    private final ConcurrentMapCacheManager remote = new ConcurrentMapCacheManager();
+    private final TwoLevelCacheManager manager = new TwoLevelCacheManager(remote, new StringRedisTemplate(),
+            List.of("item:detail"), 1 << 20, Duration.ofMinutes(1), new GenericJackson2JsonRedisSerializer(),
+            Map.of("seafood:top", new CachePolicy(Duration.ofMillis(50), false, null)));
+
+    @Test
+    void servesFromLocalAfterFirstRemoteHit() {
+        manager.setSubscribed(true);
+        Cache cache = manager.getCache("item:detail");
+        remote.getCache("item:detail").put(1, "detail");
+
+        assertEquals("detail", cache.get(1).get());
+        // 二级被直接改掉后，本地副本仍然命中
+        remote.getCache("item:detail").put(1, "changed");
+        assertEquals("detail", cache.get(1).get());
+
+        assertEquals(1, ((TwoLevelCache) cache).stats().getLocalHits());
+        assertEquals(1, ((TwoLevelCache) cache).stats().getRedisHits());
+    }
+
+    @Test
+    void invalidationMessageFromOtherNodeDropsLocalCopy() {
+        manager.setSubscribed(true);
+        Cache cache = manager.getCache("item:detail");
+        assertEquals("v1", cache.get(1, () -> "v1"));
+        remote.getCache("item:detail").put(1, "v2");
+
+        manager.onMessage(new DefaultMessage(TwoLevelCacheManager.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "other-node|item:detail|1".getBytes(StandardCharsets.UTF_8)), null);
+        assertEquals("v2", cache.get(1).get());
+    }
+
+    @Test
+    void bypassesLocalUntilSubscribedAndLeavesOtherCachesAlone() {
+        Cache cache = manager.getCache("item:detail");
+        cache.put(1, "v1");
+        remote.getCache("item:detail").put(1, "v2");
+        assertEquals("v2", cache.get(1).get());
+
+        assertFalse(manager.getCache("recommendations") instanceof TwoLevelCache);
+    }
+
+    @Test
+    void concurrentMissesRunLoaderOnce() throws Exception {
+        Cache cache = manager.getCache("item:detail");
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> results = new java.util.ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> cache.get(7, () -> {
+                    loads.incrementAndGet();
+                    release.await();
+                    return "loaded";
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<Object> result : results) {
+                assertEquals("loaded", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void servesStaleValueWhileRefreshingAhead() throws Exception {
+        Cache cache = manager.getCache("seafood:top");
+        AtomicInteger version = new AtomicInteger();
+        Callable<String> loader = () -> "v" + version.incrementAndGet();
+        assertEquals("v1", cache.get("popular", loader));
+
+        Thread.sleep(80);
+        // 软过期后先返回旧值，后台刷新
+        assertEquals("v1", cache.get("popular", loader));
+        for (int i = 0; i < 50 && !"v2".equals(cache.get("popular").get()); i++) {
+            Thread.sleep(20);
+        }
+        assertEquals("v2", cache.get("popular").get());
+        assertEquals(2, version.get());
+    }
+
+    @Test
+    void batchReadReturnsHitsAndBatchWriteFillsBothLevels() {
+        manager.setSubscribed(true);
+        TwoLevelCache cache = (TwoLevelCache) manager.getCache("item:detail");
+        remote.getCache("item:detail").put(1, "one");
+
+        assertEquals(Map.of(1, "one"), cache.getAll(List.of(1, 2)));
+        cache.putAll(Map.of(2, "two"));
+        assertEquals("two", remote.getCache("item:detail").get(2).get());
+        assertEquals(Map.of(1, "one", 2, "two"), cache.getAll(List.of(1, 2)));
+        assertEquals(2, cache.stats().getLocalHits());
+    }
+}
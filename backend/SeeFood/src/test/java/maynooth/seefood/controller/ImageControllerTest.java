@@ -0,0 +1,86 @@
+package maynooth.seefood.controller;
+
+import maynooth.seefood.pojo.ImageVariant;
+import maynooth.seefood.pojo.StoredImage;
+import maynooth.seefood.service.ImageStore;
+import maynooth.seefood.service.ImageVariantService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class ImageControllerTest {
+
+    private static final String HASH = "b".repeat(64);
+
+    @TempDir
+    Path dir;
+
+    private final ImageStore imageStore = Mockito.mock(ImageStore.class);
+    private final ImageVariantService variants = Mockito.mock(ImageVariantService.class);
+    private final ImageController controller = new ImageController();
+
+    ImageControllerTest() {
+        ReflectionTestUtils.setField(controller, "imageStore", imageStore);
+        ReflectionTestUtils.setField(controller, "imageVariantService", variants);
+    }
+
+    private StoredImage image(String name) throws Exception {
+        Path path = Files.write(dir.resolve(name), new byte[]{1, 2, 3});
+        return new StoredImage(HASH, "image/png", 3, path);
+    }
+
+    @Test
+    void originalIsImmutableAndRevalidatesWithEtag() throws Exception {
+        when(imageStore.find(HASH)).thenReturn(image("original"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.getImage(HASH, null, new MockHttpServletRequest(), response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("\"" + HASH + "\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals("public, max-age=31536000, immutable", response.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertArrayEquals(new byte[]{1, 2, 3}, response.getContentAsByteArray());
+
+        MockHttpServletRequest conditional = new MockHttpServletRequest();
+        conditional.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + HASH + "\"");
+        MockHttpServletResponse notModified = new MockHttpServletResponse();
+        controller.getImage(HASH, null, conditional, notModified);
+        assertEquals(304, notModified.getStatus());
+        assertEquals(0, notModified.getContentAsByteArray().length);
+    }
+
+    @Test
+    void variantHasItsOwnEtagAndPendingVariantIsNotCachedForever() throws Exception {
+        when(variants.find(HASH, ImageVariant.of("s"))).thenReturn(image("small"));
+        MockHttpServletResponse small = new MockHttpServletResponse();
+        controller.getImage(HASH, "s", new MockHttpServletRequest(), small);
+        assertEquals("\"" + HASH + "-s\"", small.getHeader(HttpHeaders.ETAG));
+        assertEquals("public, max-age=31536000, immutable", small.getHeader(HttpHeaders.CACHE_CONTROL));
+
+        // 中号还没生成，先返回原图
+        when(imageStore.find(HASH)).thenReturn(image("original"));
+        MockHttpServletResponse pending = new MockHttpServletResponse();
+        controller.getImage(HASH, "m", new MockHttpServletRequest(), pending);
+        assertEquals("no-cache", pending.getHeader(HttpHeaders.CACHE_CONTROL));
+    }
+
+    @Test
+    void unknownHashAndSizeAreRejected() throws Exception {
+        MockHttpServletResponse missing = new MockHttpServletResponse();
+        controller.getImage(HASH, null, new MockHttpServletRequest(), missing);
+        assertEquals(404, missing.getStatus());
+
+        MockHttpServletResponse badSize = new MockHttpServletResponse();
+        controller.getImage(HASH, "xl", new MockHttpServletRequest(), badSize);
+        assertEquals(400, badSize.getStatus());
+    }
+}
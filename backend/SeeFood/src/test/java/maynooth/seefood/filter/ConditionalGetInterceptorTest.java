@@ -0,0 +1,79 @@
+package maynooth.seefood.filter;
+
+import maynooth.seefood.cache.ContentVersions;
+import maynooth.seefood.cache.TwoLevelCacheManager;
+import maynooth.seefood.event.CatalogChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConditionalGetInterceptorTest {
+
+    static class Handlers {
+        @ConditionalGet(ConditionalGet.Scope.CATALOG)
+        public void popular() {
+        }
+
+        @ConditionalGet(ConditionalGet.Scope.ITEM)
+        public void detail() {
+        }
+    }
+
+    private final TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(new ConcurrentMapCacheManager(),
+            new StringRedisTemplate(), List.of(), 1024, Duration.ofMinutes(1), new GenericJackson2JsonRedisSerializer(), Map.of());
+    private final ContentVersions versions = new ContentVersions(cacheManager);
+    private final ConditionalGetInterceptor interceptor = new ConditionalGetInterceptor();
+
+    ConditionalGetInterceptorTest() {
+        ReflectionTestUtils.setField(interceptor, "contentVersions", versions);
+    }
+
+    private MockHttpServletResponse get(String method, String ifNoneMatch, Map<String, String> variables) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, variables);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean proceed = interceptor.preHandle(request, response,
+                new HandlerMethod(new Handlers(), Handlers.class.getMethod(method)));
+        assertEquals(proceed, response.getStatus() == 200);
+        return response;
+    }
+
+    @Test
+    void returnsNotModifiedUntilCatalogChanges() throws Exception {
+        String etag = get("popular", null, Map.of()).getHeader("ETag");
+        assertNotNull(etag);
+        assertEquals(304, get("popular", etag, Map.of()).getStatus());
+
+        versions.onCatalogChanged(new CatalogChangedEvent(null));
+        assertEquals(200, get("popular", etag, Map.of()).getStatus());
+    }
+
+    @Test
+    void itemVersionFollowsItemCacheEviction() throws Exception {
+        String one = get("detail", null, Map.of("itemId", "1")).getHeader("ETag");
+        String two = get("detail", null, Map.of("itemId", "2")).getHeader("ETag");
+        assertNotEquals(one, two);
+
+        cacheManager.setSubscribed(true);
+        //putViews 清 item:detail 的 key 后版本变化，其它海鲜不受影响
+        cacheManager.onMessage(new org.springframework.data.redis.connection.DefaultMessage(new byte[0],
+                "other|item:detail|1".getBytes()), null);
+        assertEquals(200, get("detail", one, Map.of("itemId", "1")).getStatus());
+        assertEquals(304, get("detail", two, Map.of("itemId", "2")).getStatus());
+    }
+}
@@ -0,0 +1,62 @@
+package maynooth.seefood.index;
+
+import maynooth.seefood.event.IngredientAddedEvent;
+import maynooth.seefood.mapper.IngredientMapper;
+import maynooth.seefood.pojo.DTO.SuggestionDTO;
+import maynooth.seefood.pojo.PO.IngredientPO;
+import maynooth.seefood.pojo.PO.SeafoodPO;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class AutocompleteIndexTest {
+
+    private final IngredientMapper ingredientMapper = Mockito.mock(IngredientMapper.class);
+    private final AutocompleteIndex index = new AutocompleteIndex(ingredientMapper);
+
+    AutocompleteIndexTest() {
+        when(ingredientMapper.selectIngredientSuggestions()).thenReturn(List.of(
+                new SuggestionDTO("ingredient", 30, "Sea Salt", 40),
+                new SuggestionDTO("ingredient", 31, "生姜", 2)));
+    }
+
+    private static SeafoodPO seafood(int id, String name, int views) {
+        SeafoodPO seafoodPO = new SeafoodPO();
+        seafoodPO.setSeafoodId(id);
+        seafoodPO.setSeafoodName(name);
+        seafoodPO.setViews(views);
+        return seafoodPO;
+    }
+
+    private static List<String> refs(List<SuggestionDTO> suggestions) {
+        return suggestions.stream().map(suggestion -> suggestion.getType() + ":" + suggestion.getId()).toList();
+    }
+
+    @Test
+    void matchesWordStartsRankedByViews() {
+        index.rebuild(List.of(seafood(1, "Atlantic Salmon", 5), seafood(2, "Salmon Roe", 50),
+                seafood(3, "Sardine", 20), seafood(4, "Cod", 100)));
+
+        // 食材按加购次数和海鲜的浏览量一起排
+        assertEquals(List.of("seafood:2", "ingredient:30", "seafood:3", "seafood:1"), refs(index.suggest("sa", 10)));
+        assertEquals(List.of("seafood:2", "seafood:1"), refs(index.suggest(" SALMON ", 10)));
+        assertEquals(List.of("seafood:2"), refs(index.suggest("sa", 1)));
+        assertEquals(List.of("ingredient:30"), refs(index.suggest("se", 10)));
+        assertTrue(index.suggest("x", 10).isEmpty());
+    }
+
+    @Test
+    void matchesAnyCjkCharacterAndIncrementalAdds() {
+        index.rebuild(List.of(seafood(1, "三文鱼", 1)));
+        index.add(seafood(2, "鱿鱼", 3));
+        index.onIngredientAdded(new IngredientAddedEvent(new IngredientPO(32, "鱼露", 0, null)));
+
+        assertEquals(List.of("seafood:2", "seafood:1", "ingredient:32"), refs(index.suggest("鱼", 10)));
+        assertEquals(List.of("seafood:1"), refs(index.suggest("文鱼", 10)));
+        assertEquals(List.of("ingredient:31"), refs(index.suggest("姜", 10)));
+    }
+}
@@ -0,0 +1,76 @@
+package maynooth.seefood.index;
+
+import maynooth.seefood.event.IngredientAddedEvent;
+import maynooth.seefood.mapper.IngredientMapper;
+import maynooth.seefood.pojo.PO.IngredientPO;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class IngredientDictionaryTest {
+
+    private final IngredientMapper mapper = Mockito.mock(IngredientMapper.class);
+    private final ApplicationEventPublisher publisher = Mockito.mock(ApplicationEventPublisher.class);
+    private final IngredientDictionary dictionary = new IngredientDictionary(mapper, publisher,
+            Mockito.mock(PlatformTransactionManager.class));
+
+    @Test
+    void loadsByNameAndIdIgnoringCase() {
+        when(mapper.selectAllIngredients()).thenReturn(List.of(new IngredientPO(3, "Lemon", 0.5, "🍋")));
+        dictionary.reload();
+
+        assertTrue(dictionary.isReady());
+        assertEquals(3, dictionary.get(" lemon ").getIngredientId());
+        assertEquals("🍋", dictionary.get(3).getIngredientPic());
+        assertSame(dictionary.get(3), dictionary.intern(new IngredientPO(null, "LEMON", 9, null)));
+        verify(mapper, never()).addIngredient(any());
+    }
+
+    @Test
+    void concurrentFirstInsertsOfOneNameAreCoalesced() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(mapper.addIngredient(any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            invocation.<IngredientPO>getArgument(0).setIngredientId(42);
+            return 1;
+        });
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<IngredientPO>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> dictionary.intern(new IngredientPO(null, "Garlic", 1.2, "🧄"))));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<IngredientPO> result : results) {
+                assertEquals(42, result.get(5, TimeUnit.SECONDS).getIngredientId());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        verify(mapper, times(1)).addIngredient(any());
+        verify(publisher, times(1)).publishEvent(any(IngredientAddedEvent.class));
+        assertEquals("Garlic", dictionary.get(42).getIngredientName());
+    }
+
+    //其它节点先插入了同名食材
+    @Test
+    void duplicateKeyFallsBackToLookup() {
+        when(mapper.addIngredient(any())).thenThrow(new DuplicateKeyException("uk_ingredient_name"));
+        when(mapper.selectIngredientByName("Dill")).thenReturn(new IngredientPO(7, "Dill", 2, "🌿"));
+
+        assertEquals(7, dictionary.intern(new IngredientPO(null, "Dill ", 2, null)).getIngredientId());
+        assertEquals(7, dictionary.get("dill").getIngredientId());
+        verify(publisher, never()).publishEvent(any());
+    }
+}
@@ -0,0 +1,71 @@
+package maynooth.seefood.index;
+
+import maynooth.seefood.event.CatalogChangedEvent;
+import maynooth.seefood.mapper.SeafoodMapper;
+import maynooth.seefood.pojo.PO.SeafoodPO;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SeafoodCatalogTest {
+
+    private final SeafoodMapper seafoodMapper = Mockito.mock(SeafoodMapper.class);
+    private final SeasonIndex seasonIndex = new SeasonIndex();
+    private final ApplicationEventPublisher eventPublisher = Mockito.mock(ApplicationEventPublisher.class);
+    private final SeafoodCatalog catalog = new SeafoodCatalog(seafoodMapper, List.of(seasonIndex), eventPublisher);
+
+    private static SeafoodPO seafood(int id) {
+        return new SeafoodPO(id, "seafood" + id, null, null, 0, 5, null, 1);
+    }
+
+    @Test
+    void reloadDropsSeafoodDeletedFromTheDatabase() {
+        when(seafoodMapper.getSeafoodInPopularity()).thenReturn(List.of(seafood(1), seafood(2)));
+        catalog.reload();
+        when(seafoodMapper.getSeafoodInPopularity()).thenReturn(List.of(seafood(1)));
+        catalog.reload();
+
+        assertNull(catalog.get(2));
+        assertEquals(1, catalog.all().size());
+        assertEquals(1, seasonIndex.get(5).size());
+    }
+
+    //查询期间新增的海鲜不在查询结果里，也要保留
+    @Test
+    void reloadKeepsSeafoodAddedWhileLoading() {
+        when(seafoodMapper.getSeafoodInPopularity()).thenAnswer(invocation -> {
+            catalog.add(seafood(3));
+            return List.of(seafood(1));
+        });
+        catalog.reload();
+
+        assertNotNull(catalog.get(3));
+        assertEquals(2, seasonIndex.get(5).size());
+
+        when(seafoodMapper.getSeafoodInPopularity()).thenReturn(List.of(seafood(1)));
+        catalog.reload();
+        assertNull(catalog.get(3));
+    }
+
+    //定时刷新查到的内容和目录里一样时不发事件，ETag 和响应缓存保持不变
+    @Test
+    void reloadPublishesOnlyWhenContentsChange() {
+        when(seafoodMapper.getSeafoodInPopularity()).thenReturn(List.of(seafood(1), seafood(2)));
+        catalog.reload();
+        catalog.reload();
+        verify(eventPublisher, times(1)).publishEvent(any(CatalogChangedEvent.class));
+
+        SeafoodPO renamed = seafood(2);
+        renamed.setSeafoodName("Crab");
+        when(seafoodMapper.getSeafoodInPopularity()).thenReturn(List.of(seafood(1), renamed));
+        catalog.reload();
+        verify(eventPublisher, times(2)).publishEvent(any(CatalogChangedEvent.class));
+        assertEquals("Crab", catalog.get(2).getSeafoodName());
+    }
+}
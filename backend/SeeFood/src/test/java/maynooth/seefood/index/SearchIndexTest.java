@@ -0,0 +1,93 @@
+package maynooth.seefood.index;
+
+import maynooth.seefood.event.IngredientAddedEvent;
+import maynooth.seefood.mapper.IngredientMapper;
+import maynooth.seefood.mapper.RecipeMapper;
+import maynooth.seefood.pojo.DTO.SearchHitDTO;
+import maynooth.seefood.pojo.PO.CookingPO;
+import maynooth.seefood.pojo.PO.IngredientPO;
+import maynooth.seefood.pojo.PO.RecipePO;
+import maynooth.seefood.pojo.PO.SeafoodPO;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class SearchIndexTest {
+
+    private final RecipeMapper recipeMapper = Mockito.mock(RecipeMapper.class);
+    private final IngredientMapper ingredientMapper = Mockito.mock(IngredientMapper.class);
+    private final SearchIndex index = new SearchIndex(recipeMapper, ingredientMapper);
+
+    SearchIndexTest() {
+        when(recipeMapper.getAllCookings()).thenReturn(List.of(new CookingPO(1, 10), new CookingPO(2, 11)));
+        when(recipeMapper.getAllRecipes()).thenReturn(List.of(
+                new RecipePO(10, "Salmon Teriyaki", "Glazed salmon with soy", null),
+                new RecipePO(11, "Baked Cod", "Served with a salmon butter sauce", null),
+                new RecipePO(12, "清蒸鲈鱼", "葱姜清蒸", null)));
+        when(ingredientMapper.selectAllIngredients()).thenReturn(List.of(
+                new IngredientPO(20, "Soy Sauce", 1.5, null),
+                new IngredientPO(21, "Smoked Salmon Flakes", 3, null),
+                new IngredientPO(22, "生姜", 0.5, null)));
+    }
+
+    private static SeafoodPO seafood(int id, String name, String brief) {
+        SeafoodPO seafoodPO = new SeafoodPO();
+        seafoodPO.setSeafoodId(id);
+        seafoodPO.setSeafoodName(name);
+        seafoodPO.setSeafoodBrief(brief);
+        return seafoodPO;
+    }
+
+    private static List<String> refs(List<SearchHitDTO> hits) {
+        return hits.stream().map(hit -> hit.getType() + ":" + hit.getId()).toList();
+    }
+
+    @Test
+    void ranksNameMatchesAboveBriefMatchesAcrossAllTypes() {
+        index.rebuild(List.of(
+                seafood(1, "Atlantic Salmon", "Rich, oily fish"),
+                seafood(2, "Cod", "Often served alongside salmon"),
+                seafood(3, "三文鱼", "大西洋鲑鱼")));
+
+        List<SearchHitDTO> hits = index.search("salmon", null, 10);
+        assertEquals(5, hits.size());
+        // 名称命中的海鲜、菜谱、食材都排在只有简介命中的前面
+        assertEquals(Set.of("seafood:1", "recipe:10", "ingredient:21"), Set.copyOf(refs(hits).subList(0, 3)));
+        assertEquals(Set.of("seafood:2", "recipe:11"), Set.copyOf(refs(hits).subList(3, 5)));
+        for (int i = 1; i < hits.size(); i++) {
+            assertTrue(hits.get(i - 1).getScore() >= hits.get(i).getScore());
+        }
+    }
+
+    @Test
+    void recipeHitsCarryTheirSeafoodAndTypeFilterApplies() {
+        index.rebuild(List.of(seafood(1, "Atlantic Salmon", null)));
+
+        List<SearchHitDTO> recipes = index.search("salmon", SearchIndex.RECIPE, 10);
+        assertEquals(List.of("recipe:10", "recipe:11"), refs(recipes));
+        assertEquals(1, recipes.get(0).getSeafoodId());
+        assertEquals(2, recipes.get(1).getSeafoodId());
+
+        List<SearchHitDTO> ingredients = index.search("soy", SearchIndex.INGREDIENT, 10);
+        assertEquals(List.of("ingredient:20"), refs(ingredients));
+        assertNull(ingredients.get(0).getSeafoodId());
+        assertEquals(List.of("recipe:10"), refs(index.search("soy", SearchIndex.RECIPE, 10)));
+    }
+
+    @Test
+    void matchesCjkBigramsAndSingleCharacters() {
+        index.rebuild(List.of(seafood(3, "三文鱼", "大西洋鲑鱼"), seafood(4, "鱿鱼", null)));
+        index.add(seafood(5, "文蛤", null));
+        index.onIngredientAdded(new IngredientAddedEvent(new IngredientPO(23, "文蛤汁", 2, null)));
+
+        assertEquals(3, index.search("文鱼", null, 10).get(0).getId());
+        assertEquals(Set.of("seafood:4", "seafood:3", "recipe:12"), Set.copyOf(refs(index.search("鱼", null, 10))));
+        assertEquals(List.of("seafood:5", "ingredient:23"), refs(index.search("文蛤", null, 10)));
+        assertEquals(List.of("ingredient:22"), refs(index.search("生姜", null, 10)));
+    }
+}
@@ -0,0 +1,58 @@
+package maynooth.seefood.index;
+
+import maynooth.seefood.pojo.PO.SeafoodPO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeasonIndexTest {
+
+    private static SeafoodPO seafood(int id, int season) {
+        SeafoodPO seafoodPO = new SeafoodPO();
+        seafoodPO.setSeafoodId(id);
+        seafoodPO.setSeafoodName("seafood" + id);
+        seafoodPO.setSeason(season);
+        return seafoodPO;
+    }
+
+    private static List<Integer> ids(List<SeafoodPO> seafoods) {
+        return seafoods.stream().map(SeafoodPO::getSeafoodId).toList();
+    }
+
+    @Test
+    void wrapsAroundDecemberAndJanuary() {
+        SeasonIndex index = new SeasonIndex();
+        index.rebuild(List.of(seafood(1, 1), seafood(2, 12), seafood(3, 6), seafood(4, 2), seafood(5, 11)));
+
+        assertEquals(List.of(1, 2, 4), ids(index.get(1)));
+        assertEquals(List.of(1, 2, 5), ids(index.get(12)));
+        assertEquals(List.of(3), ids(index.get(6)));
+    }
+
+    @Test
+    void addUpdatesNeighbouringMonths() {
+        SeasonIndex index = new SeasonIndex();
+        index.rebuild(List.of(seafood(1, 3)));
+        index.add(seafood(2, 4));
+
+        assertEquals(List.of(1, 2), ids(index.get(3)));
+        assertEquals(List.of(2), ids(index.get(5)));
+        assertTrue(index.get(9).isEmpty());
+    }
+
+    //季节改了的海鲜从旧月份移走；季节无效时只移除
+    @Test
+    void readdingMovesSeafoodOutOfItsOldBucket() {
+        SeasonIndex index = new SeasonIndex();
+        index.rebuild(List.of(seafood(1, 3), seafood(2, 3)));
+        index.add(seafood(1, 8));
+
+        assertEquals(List.of(2), ids(index.get(3)));
+        assertEquals(List.of(1), ids(index.get(8)));
+
+        index.add(seafood(1, 0));
+        assertTrue(index.get(8).isEmpty());
+    }
+}
@@ -0,0 +1,82 @@
+package maynooth.seefood.index;
+
+import maynooth.seefood.pojo.PO.SeafoodPO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TagIndexTest {
+
+    private static SeafoodPO seafood(int id, String tags) {
+        SeafoodPO seafoodPO = new SeafoodPO();
+        seafoodPO.setSeafoodId(id);
+        seafoodPO.setTags(tags);
+        return seafoodPO;
+    }
+
+    private static List<Integer> all(long[] bitmap) {
+        return TagIndex.page(bitmap, 0, Integer.MAX_VALUE);
+    }
+
+    //id 跨越 64 位字边界：63/64 相邻两个字，130 在第三个字
+    private final TagIndex index = new TagIndex();
+
+    TagIndexTest() {
+        index.rebuild(List.of(seafood(1, "fish, Wild"), seafood(63, "fish/farmed"), seafood(64, "FISH,wild"),
+                seafood(130, "shell , wild"), seafood(200, "shell/farmed")));
+    }
+
+    @Test
+    void andOrNotAcrossWordBoundaries() {
+        assertEquals(List.of(1, 63, 64), all(index.query(List.of("fish"), List.of(), List.of())));
+        assertEquals(List.of(1, 64), all(index.query(List.of("fish", " wild "), List.of(), List.of())));
+        assertEquals(List.of(1, 64, 130, 200), all(index.query(List.of(), List.of("wild", "shell"), List.of())));
+        assertEquals(List.of(1, 64, 130), all(index.query(List.of(), List.of(), List.of("farmed"))));
+        assertEquals(List.of(130), all(index.query(List.of("wild"), List.of("shell", "unknown"), List.of("fish"))));
+        assertTrue(all(index.query(List.of("unknown"), List.of(), List.of())).isEmpty());
+    }
+
+    //any 为空不限制，等于全集
+    @Test
+    void emptyAnyMatchesEverything() {
+        assertEquals(List.of(1, 63, 64, 130, 200), all(index.query(List.of(), List.of(), List.of())));
+        assertEquals(5, TagIndex.cardinality(index.query(List.of(), List.of(), List.of())));
+    }
+
+    @Test
+    void pagesStartMidWordAndStopAtTheEnd() {
+        List<SeafoodPO> many = new ArrayList<>();
+        for (int id = 60; id < 140; id += 3) {
+            many.add(seafood(id, "x"));
+        }
+        TagIndex large = new TagIndex();
+        large.rebuild(many);
+        long[] bitmap = large.query(List.of("x"), List.of(), List.of());
+
+        // 第 2 个置位是 63（第一个字），第 3 个置位是 66（第二个字）
+        assertEquals(List.of(63, 66, 69), TagIndex.page(bitmap, 1, 3));
+        assertEquals(List.of(135, 138), TagIndex.page(bitmap, 25, 10));
+        assertTrue(TagIndex.page(bitmap, 27, 10).isEmpty());
+        assertTrue(TagIndex.page(bitmap, (long) Integer.MAX_VALUE * 100, 10).isEmpty());
+        assertTrue(TagIndex.page(bitmap, -1, 10).isEmpty());
+    }
+
+    //重新加入时旧标签清掉，不用等全量重建
+    @Test
+    void addReplacesPreviousTags() {
+        index.add(seafood(64, "shell"));
+
+        assertEquals(List.of(1, 63), all(index.query(List.of("fish"), List.of(), List.of())));
+        assertEquals(List.of(64, 130, 200), all(index.query(List.of("shell"), List.of(), List.of())));
+
+        index.add(seafood(63, "shell"));
+        assertEquals(List.of(200), all(index.query(List.of("farmed"), List.of(), List.of())));
+
+        index.add(seafood(300, "new"));
+        assertEquals(List.of(300), all(index.query(List.of("NEW"), List.of(), List.of())));
+        assertEquals(6, TagIndex.cardinality(index.query(List.of(), List.of(), List.of())));
+    }
+}
@@ -0,0 +1,80 @@
+package maynooth.seefood.mapper;
+
+import maynooth.seefood.service.ImageStore;
+import maynooth.seefood.service.LocalImageStore;
+import maynooth.seefood.utils.ImageUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ImageRefTypeHandlerTest {
+
+    private static final String HASH = "a".repeat(64);
+
+    private final ImageStore imageStore = Mockito.mock(ImageStore.class);
+    private final ImageRefTypeHandler handler = new ImageRefTypeHandler(imageStore);
+
+    //读取不解码也不写文件，遗留的内联图片原样返回，等迁移
+    @Test
+    void readsAreSideEffectFree() throws Exception {
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        when(rs.getString("seafoodImage")).thenReturn("iVBORw0KGgo=");
+        when(rs.getString(1)).thenReturn(HASH);
+
+        assertEquals("iVBORw0KGgo=", handler.getResult(rs, "seafoodImage"));
+        assertEquals(HASH, handler.getResult(rs, 1));
+        verifyNoInteractions(imageStore);
+    }
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writesStoreInlineImagesAndKeepHashes() throws Exception {
+        PreparedStatement ps = Mockito.mock(PreparedStatement.class);
+        when(imageStore.storeBase64("iVBORw0KGgo=")).thenReturn(HASH);
+
+        handler.setParameter(ps, 1, "iVBORw0KGgo=", null);
+        handler.setParameter(ps, 2, HASH, null);
+        handler.setParameter(ps, 3, null, null);
+
+        verify(ps).setString(1, HASH);
+        verify(ps).setString(2, HASH);
+        verify(ps).setNull(3, Types.VARCHAR);
+        verify(imageStore, times(1)).storeBase64(anyString());
+    }
+
+    //真实的图片存储：URL 和解码出来不是图片的 Base64 都原样写回，不落任何文件
+    @Test
+    void urlsAndNonImagesAreWrittenBackUnchanged() throws Exception {
+        ImageRefTypeHandler real = new ImageRefTypeHandler(
+                new LocalImageStore(dir.toString(), Mockito.mock(ApplicationEventPublisher.class)));
+        PreparedStatement ps = Mockito.mock(PreparedStatement.class);
+        String url = "http://cdn.x.org/a.png";
+        String text = Base64.getEncoder().encodeToString("just some text, not an image".getBytes());
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 1, 2, 3, 4};
+
+        real.setParameter(ps, 1, url, null);
+        real.setParameter(ps, 2, text, null);
+        try (var files = Files.walk(dir)) {
+            assertEquals(1, files.count());
+        }
+        real.setParameter(ps, 3, "data:image/png;base64," + Base64.getEncoder().encodeToString(png), null);
+
+        verify(ps).setString(1, url);
+        verify(ps).setString(2, text);
+        verify(ps).setString(3, ImageUtil.sha256Hex(png));
+        assertThrows(IllegalArgumentException.class, () -> ImageUtil.decodeBase64Image(url));
+    }
+}
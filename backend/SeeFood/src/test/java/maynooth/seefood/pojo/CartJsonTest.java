@@ -0,0 +1,29 @@
+package maynooth.seefood.pojo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import maynooth.seefood.pojo.DTO.CartUpdateDTO;
+import maynooth.seefood.pojo.DTO.CartUpdateResultDTO;
+import maynooth.seefood.pojo.DTO.ICartDTO;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartJsonTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    //食材购物车行的 ID 在所有接口里都叫 icartId
+    @Test
+    void ingredientCartIdHasOneNameAcrossTheApi() throws Exception {
+        JsonNode cart = objectMapper.valueToTree(new ICartDTO(5, null, 1, 2.0, null));
+        JsonNode result = objectMapper.valueToTree(new CartUpdateResultDTO(null, 5, 0, CartUpdateResultDTO.DELETED));
+        CartUpdateDTO update = objectMapper.readValue("{\"icartId\":5,\"count\":0}", CartUpdateDTO.class);
+
+        assertEquals(5, cart.get("icartId").asInt());
+        assertEquals(5, result.get("icartId").asInt());
+        assertFalse(result.has("iCartId"));
+        assertEquals(5, update.getICartId());
+        assertTrue(update.isValid());
+    }
+}
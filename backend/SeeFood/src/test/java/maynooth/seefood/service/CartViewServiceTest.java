@@ -0,0 +1,57 @@
+package maynooth.seefood.service;
+
+import maynooth.seefood.index.SeafoodCatalog;
+import maynooth.seefood.mapper.SeafoodMapper;
+import maynooth.seefood.pojo.DTO.CartDTO;
+import maynooth.seefood.pojo.DTO.CartViewDTO;
+import maynooth.seefood.pojo.DTO.ICartDTO;
+import maynooth.seefood.pojo.DTO.SeafoodSummaryDTO;
+import maynooth.seefood.pojo.LoginUser;
+import maynooth.seefood.pojo.PO.IngredientPO;
+import maynooth.seefood.pojo.PO.SeafoodPO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class CartViewServiceTest {
+
+    private final PurchaseService purchaseService = Mockito.mock(PurchaseService.class);
+    private final SeafoodCatalog catalog = Mockito.mock(SeafoodCatalog.class);
+    private final SeafoodMapper seafoodMapper = Mockito.mock(SeafoodMapper.class);
+    private final LoginUser loginUser = Mockito.mock(LoginUser.class);
+    private final CartViewService service = new CartViewService(purchaseService, catalog, seafoodMapper, 2, 4);
+
+    @AfterEach
+    void shutdown() {
+        service.destroy();
+    }
+
+    //目录里没有的海鲜一次查询补上，查不到的（已下架）不显示也不计入总价
+    @Test
+    void combinesBothCartsWithLineAndGrandTotals() {
+        when(purchaseService.selectNoPayedCart(loginUser)).thenReturn(List.of(
+                new CartDTO(11, 7L, 1, 2, false, 4.5, null),
+                new CartDTO(12, 7L, 2, 1, false, 10, null),
+                new CartDTO(13, 7L, 3, 5, false, 1, null)));
+        when(purchaseService.selectNopayedICart(loginUser)).thenReturn(List.of(
+                new ICartDTO(21, new IngredientPO(5, "Lemon", 0.5, null), 4, 0.5, null)));
+        when(catalog.isReady()).thenReturn(true);
+        when(catalog.get(1)).thenReturn(new SeafoodPO(1, "Cod", null, "h1", 0, 0, null, 4.5));
+        when(seafoodMapper.getSummariesByIds(List.of(2, 3))).thenReturn(List.of(new SeafoodSummaryDTO(2, "Crab", "h2", 10)));
+
+        CartViewDTO cart = service.getCart(loginUser);
+
+        assertEquals(2, cart.getSeafood().size());
+        assertEquals("Cod", cart.getSeafood().get(0).getName());
+        assertEquals(9.0, cart.getSeafood().get(0).getLineTotal());
+        assertEquals(19.0, cart.getSeafoodTotal());
+        assertEquals(2.0, cart.getIngredientTotal());
+        assertEquals(21.0, cart.getTotal());
+        verify(seafoodMapper, times(1)).getSummariesByIds(anyCollection());
+    }
+}
@@ -0,0 +1,142 @@
+package maynooth.seefood.service;
+
+import maynooth.seefood.pojo.Result;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class IdempotencyStoreTest {
+
+    //没有连接的 RedisTemplate，每次调用都失败，只在本节点去重
+    private final IdempotencyStore store = new IdempotencyStore(new StringRedisTemplate(),
+            Duration.ofMinutes(1), Duration.ofSeconds(5), Duration.ofSeconds(5));
+
+    @Test
+    void concurrentDuplicatesWaitForTheFirstExecution() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<Result> first = pool.submit(() -> store.execute(1, "cart", "k1", "[1, 2]", () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                await(finish);
+                return 1;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<Result> second = pool.submit(() -> store.execute(1, "cart", "k1", "[1, 2]", executions::incrementAndGet));
+            finish.countDown();
+
+            assertEquals(1, first.get(5, TimeUnit.SECONDS).getData());
+            assertEquals(1, second.get(5, TimeUnit.SECONDS).getData());
+            assertEquals(1, executions.get());
+            // 完成之后的重试直接返回记下的结果
+            assertEquals(1, store.execute(1, "cart", "k1", "[1, 2]", executions::incrementAndGet).getData());
+            assertEquals(1, executions.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void keyIsScopedToUserAndRejectsDifferentRequest() {
+        assertEquals(0, store.execute(1, "cart", "k2", "[1]", () -> 0).getData());
+        assertEquals(422, store.execute(1, "cart", "k2", "[3]", () -> 1).getCode());
+        assertEquals(1, store.execute(2, "cart", "k2", "[3]", () -> 1).getData());
+        assertEquals(1, store.execute(1, "icart", "k2", "[3]", () -> 1).getData());
+    }
+
+    @Test
+    void failedExecutionIsNotRemembered() {
+        assertThrows(IllegalStateException.class, () -> store.execute(1, "cart", "k3", "[1]", () -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals(1, store.execute(1, "cart", "k3", "[1]", () -> 1).getData());
+    }
+
+    //Redis 可用：先 SET NX 写执行中标记，执行完把 "D|指纹|结果" 写回去
+    @Test
+    void claimsKeyInRedisAndStoresTheResult() {
+        StringRedisTemplate redis = Mockito.mock(StringRedisTemplate.class);
+        ValueOperations<String, String> ops = mockOps(redis);
+        when(ops.setIfAbsent(eq("seefood:idem:1:cart:k4"), startsWith("P|"), eq(Duration.ofSeconds(5)))).thenReturn(true);
+        IdempotencyStore redisStore = new IdempotencyStore(redis, Duration.ofMinutes(1), Duration.ofSeconds(5), Duration.ofSeconds(1));
+
+        assertEquals(7, redisStore.execute(1, "cart", "k4", "[1]", () -> 7).getData());
+
+        verify(ops).set("seefood:idem:1:cart:k4", "D|[1]|7", Duration.ofMinutes(1));
+    }
+
+    //别的节点已经拿到标记：不执行，等它写回结果后直接返回
+    @Test
+    void replaysResultStoredByAnotherNode() {
+        StringRedisTemplate redis = Mockito.mock(StringRedisTemplate.class);
+        ValueOperations<String, String> ops = mockOps(redis);
+        when(ops.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        when(ops.get("seefood:idem:1:cart:k5")).thenReturn("P|other", "D|[1, 2]|3");
+        IdempotencyStore redisStore = new IdempotencyStore(redis, Duration.ofMinutes(1), Duration.ofSeconds(5), Duration.ofSeconds(2));
+        AtomicInteger executions = new AtomicInteger();
+
+        assertEquals(3, redisStore.execute(1, "cart", "k5", "[1, 2]", executions::incrementAndGet).getData());
+        assertEquals(422, redisStore.execute(1, "cart", "k5", "[9]", executions::incrementAndGet).getCode());
+        assertEquals(0, executions.get());
+        verify(ops, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    void returnsConflictWhileAnotherNodeIsStillRunning() {
+        StringRedisTemplate redis = Mockito.mock(StringRedisTemplate.class);
+        ValueOperations<String, String> ops = mockOps(redis);
+        when(ops.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        when(ops.get("seefood:idem:1:cart:k6")).thenReturn("P|other");
+        IdempotencyStore redisStore = new IdempotencyStore(redis, Duration.ofMinutes(1), Duration.ofSeconds(5), Duration.ofMillis(120));
+        AtomicInteger executions = new AtomicInteger();
+
+        assertEquals(409, redisStore.execute(1, "cart", "k6", "[1]", executions::incrementAndGet).getCode());
+        assertEquals(0, executions.get());
+    }
+
+    //执行失败时只删自己写的标记，重试可以重新执行
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedExecutionReleasesRedisMarker() {
+        StringRedisTemplate redis = Mockito.mock(StringRedisTemplate.class);
+        ValueOperations<String, String> ops = mockOps(redis);
+        when(ops.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        IdempotencyStore redisStore = new IdempotencyStore(redis, Duration.ofMinutes(1), Duration.ofSeconds(5), Duration.ofSeconds(1));
+
+        assertThrows(IllegalStateException.class, () -> redisStore.execute(1, "cart", "k7", "[1]", () -> {
+            throw new IllegalStateException("db down");
+        }));
+
+        verify(redis).execute(any(RedisScript.class), eq(List.of("seefood:idem:1:cart:k7")), startsWith("P|"));
+        verify(ops, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ValueOperations<String, String> mockOps(StringRedisTemplate redis) {
+        ValueOperations<String, String> ops = Mockito.mock(ValueOperations.class);
+        when(redis.opsForValue()).thenReturn(ops);
+        return ops;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package maynooth.seefood.service;
+
+import maynooth.seefood.mapper.ImageMigrationMapper;
+import maynooth.seefood.mapper.RecipeMapper;
+import maynooth.seefood.mapper.SeafoodMapper;
+import maynooth.seefood.mapper.UserMapper;
+import maynooth.seefood.pojo.PO.SeafoodPO;
+import maynooth.seefood.utils.ImageUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ImageMigrationRunnerTest {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 1, 2, 3, 4};
+
+    @TempDir
+    Path dir;
+
+    private final SeafoodMapper seafoodMapper = Mockito.mock(SeafoodMapper.class);
+    private final RecipeMapper recipeMapper = Mockito.mock(RecipeMapper.class);
+    private final UserMapper userMapper = Mockito.mock(UserMapper.class);
+    private final ImageMigrationMapper imageMigrationMapper = Mockito.mock(ImageMigrationMapper.class);
+
+    private ImageMigrationRunner runner() {
+        ImageMigrationRunner runner = new ImageMigrationRunner();
+        ReflectionTestUtils.setField(runner, "seafoodMapper", seafoodMapper);
+        ReflectionTestUtils.setField(runner, "recipeMapper", recipeMapper);
+        ReflectionTestUtils.setField(runner, "userMapper", userMapper);
+        ReflectionTestUtils.setField(runner, "imageMigrationMapper", imageMigrationMapper);
+        ReflectionTestUtils.setField(runner, "imageStore",
+                new LocalImageStore(dir.toString(), Mockito.mock(ApplicationEventPublisher.class)));
+        return runner;
+    }
+
+    //按主键分批读取；转换不了的行记下来跳过，不覆盖原值
+    @Test
+    void migratesInIdOrderedBatchesAndRecordsSkippedRows() {
+        String inline = "data:image/png;base64," + Base64.getEncoder().encodeToString(PNG);
+        List<SeafoodPO> first = new ArrayList<>();
+        for (int id = 1; id <= ImageMigrationRunner.BATCH; id++) {
+            first.add(new SeafoodPO(id, null, null, inline, 0, 0, null, 0));
+        }
+        String url = "http://cdn.x.org/" + "a".repeat(60) + ".png";
+        when(seafoodMapper.selectLegacyImages(0, ImageMigrationRunner.BATCH)).thenReturn(first);
+        when(seafoodMapper.selectLegacyImages(ImageMigrationRunner.BATCH, ImageMigrationRunner.BATCH))
+                .thenReturn(List.of(new SeafoodPO(150, null, null, url, 0, 0, null, 0)));
+        when(seafoodMapper.updateSeafoodImage(anyInt(), anyString())).thenReturn(1);
+
+        runner().migrate();
+
+        String hash = ImageUtil.sha256Hex(PNG);
+        verify(seafoodMapper, times(ImageMigrationRunner.BATCH)).updateSeafoodImage(anyInt(), eq(hash));
+        verify(seafoodMapper, never()).updateSeafoodImage(eq(150), anyString());
+        verify(imageMigrationMapper).insertSkipped(eq("seafood"), eq(150L), anyString());
+        // 第二批不满一批就结束，不再查下一批
+        verify(seafoodMapper, times(2)).selectLegacyImages(anyInt(), anyInt());
+        verify(recipeMapper).selectLegacyImages(0, ImageMigrationRunner.BATCH);
+        verify(userMapper).selectLegacyAvatars(0, ImageMigrationRunner.BATCH);
+    }
+}
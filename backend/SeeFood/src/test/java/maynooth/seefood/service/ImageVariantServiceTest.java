@@ -0,0 +1,95 @@
+package maynooth.seefood.service;
+
+import maynooth.seefood.event.ImageStoredEvent;
+import maynooth.seefood.pojo.ImageVariant;
+import maynooth.seefood.pojo.StoredImage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+class ImageVariantServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private ImageVariantService service;
+
+    @AfterEach
+    void shutdown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    private static byte[] png(int width, int height) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png", out);
+        return out.toByteArray();
+    }
+
+    @Test
+    void sizeLookupGeneratesScaledJpegOnce() throws Exception {
+        LocalImageStore store = new LocalImageStore(dir.toString(), Mockito.mock(ApplicationEventPublisher.class));
+        String hash = store.store(png(800, 400));
+        service = new ImageVariantService(store, dir.toString(), 1, 4, 5000, 40_000_000);
+
+        StoredImage small = service.find(hash, ImageVariant.of("s"));
+        assertEquals("image/jpeg", small.getContentType());
+        BufferedImage scaled = ImageIO.read(small.getPath().toFile());
+        assertEquals(160, scaled.getWidth());
+        assertEquals(80, scaled.getHeight());
+        // 第二次直接用磁盘上的文件
+        assertEquals(small.getPath(), service.find(hash, ImageVariant.of("s")).getPath());
+        assertNull(service.find("not-a-hash", ImageVariant.of("s")));
+    }
+
+    //只读文件头里的尺寸，超过像素上限的不解码
+    @Test
+    void refusesImagesAboveThePixelLimit() throws Exception {
+        LocalImageStore store = new LocalImageStore(dir.toString(), Mockito.mock(ApplicationEventPublisher.class));
+        String hash = store.store(png(200, 200));
+        service = new ImageVariantService(store, dir.toString(), 1, 4, 5000, 10_000);
+
+        assertNull(service.find(hash, ImageVariant.of("m")));
+        assertFalse(Files.exists(dir.resolve("variants").resolve("m")));
+    }
+
+    //线程被占住、队列满时不等待，按需请求返回 null（控制器改回原图）
+    @Test
+    void fullQueueRejectsInsteadOfBlocking() throws Exception {
+        ImageStore store = Mockito.mock(ImageStore.class);
+        CountDownLatch release = new CountDownLatch(1);
+        String busy = "a".repeat(64);
+        String other = "b".repeat(64);
+        when(store.exists(anyString())).thenReturn(true);
+        when(store.find(busy)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        });
+        service = new ImageVariantService(store, dir.toString(), 1, 1, 5000, 40_000_000);
+        try {
+            // 一个任务在执行，一个在排队
+            service.onImageStored(new ImageStoredEvent(busy));
+
+            long start = System.nanoTime();
+            assertNull(service.find(other, ImageVariant.of("s")));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+        } finally {
+            release.countDown();
+        }
+    }
+}
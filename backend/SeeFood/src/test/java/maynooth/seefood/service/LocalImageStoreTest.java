@@ -0,0 +1,58 @@
+package maynooth.seefood.service;
+
+import maynooth.seefood.event.ImageStoredEvent;
+import maynooth.seefood.pojo.StoredImage;
+import maynooth.seefood.utils.ImageUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class LocalImageStoreTest {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 1, 2, 3, 4};
+
+    @TempDir
+    Path dir;
+
+    private final ApplicationEventPublisher publisher = Mockito.mock(ApplicationEventPublisher.class);
+
+    @Test
+    void storesByContentHashOnceAndPublishesOnlyOnFirstWrite() throws Exception {
+        LocalImageStore store = new LocalImageStore(dir.toString(), publisher);
+
+        String hash = store.store(PNG);
+        assertEquals(ImageUtil.sha256Hex(PNG), hash);
+        assertEquals(hash, store.storeBase64("data:image/png;base64," + Base64.getEncoder().encodeToString(PNG)));
+
+        Path file = dir.resolve(hash.substring(0, 2)).resolve(hash);
+        assertArrayEquals(PNG, Files.readAllBytes(file));
+        verify(publisher, times(1)).publishEvent(any(ImageStoredEvent.class));
+        try (var files = Files.walk(dir)) {
+            assertTrue(files.noneMatch(path -> path.toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    void findSniffsContentTypeAndRejectsNonHashes() {
+        String hash = new LocalImageStore(dir.toString(), publisher).store(PNG);
+        // 新实例没有缓存的类型，从文件头识别
+        LocalImageStore reopened = new LocalImageStore(dir.toString(), publisher);
+
+        StoredImage image = reopened.find(hash);
+        assertEquals("image/png", image.getContentType());
+        assertEquals(PNG.length, image.getLength());
+        assertTrue(reopened.exists(hash));
+        assertNull(reopened.find("../" + hash));
+        assertNull(reopened.find("0".repeat(64)));
+        assertThrows(IllegalArgumentException.class, () -> reopened.store(new byte[0]));
+    }
+}
@@ -0,0 +1,67 @@
+package maynooth.seefood.service;
+
+import maynooth.seefood.mapper.CartMapper;
+import maynooth.seefood.mapper.IngredientMapper;
+import maynooth.seefood.pojo.DTO.CartUpdateDTO;
+import org.apache.ibatis.executor.BatchResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MysqlCartStoreTest {
+
+    private final SqlSessionTemplate batchSession = Mockito.mock(SqlSessionTemplate.class);
+    private final CartMapper carts = Mockito.mock(CartMapper.class);
+    private final IngredientMapper ingredients = Mockito.mock(IngredientMapper.class);
+    private final MysqlCartStore store = new MysqlCartStore();
+
+    MysqlCartStoreTest() {
+        ReflectionTestUtils.setField(store, "batchSession", batchSession);
+        when(batchSession.getMapper(CartMapper.class)).thenReturn(carts);
+        when(batchSession.getMapper(IngredientMapper.class)).thenReturn(ingredients);
+    }
+
+    @AfterEach
+    void endTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    //同一条 SQL 放在一起批量执行，影响行数按请求原顺序返回
+    @Test
+    void groupsStatementsAndMapsCountsBackToRequestOrder() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        List<CartUpdateDTO> updates = List.of(new CartUpdateDTO(null, 9, 2), new CartUpdateDTO(1, null, 0),
+                new CartUpdateDTO(2, null, 5), new CartUpdateDTO(3, null, 4));
+        when(batchSession.flushStatements()).thenReturn(List.of(
+                batch(1, 0), batch(1), batch(1)));
+
+        assertArrayEquals(new int[]{1, 1, 1, 0}, store.updateLines(7L, updates));
+
+        InOrder order = inOrder(carts, ingredients);
+        order.verify(carts).updateUnpaidCartCount(7L, 2, 5);
+        order.verify(carts).updateUnpaidCartCount(7L, 3, 4);
+        order.verify(carts).deleteUnpaidCart(7L, 1);
+        order.verify(ingredients).updateUnpaidICartCount(7L, 9, 2);
+    }
+
+    @Test
+    void refusesToRunOutsideATransaction() {
+        assertThrows(IllegalStateException.class, () -> store.updateLines(7L, List.of(new CartUpdateDTO(1, null, 1))));
+        verifyNoInteractions(carts);
+    }
+
+    private static BatchResult batch(int... counts) {
+        BatchResult result = new BatchResult(null, "sql");
+        result.setUpdateCounts(counts);
+        return result;
+    }
+}
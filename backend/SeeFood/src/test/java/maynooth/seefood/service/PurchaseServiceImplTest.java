@@ -0,0 +1,124 @@
+package maynooth.seefood.service;
+
+import maynooth.seefood.mapper.CartMapper;
+import maynooth.seefood.mapper.LedgerMapper;
+import maynooth.seefood.mapper.UserMapper;
+import maynooth.seefood.pojo.DTO.CartDTO;
+import maynooth.seefood.pojo.DTO.CartUpdateDTO;
+import maynooth.seefood.pojo.DTO.CartUpdateResultDTO;
+import maynooth.seefood.pojo.DTO.CursorPageDTO;
+import maynooth.seefood.pojo.LoginUser;
+import maynooth.seefood.pojo.PO.LedgerPO;
+import maynooth.seefood.utils.OrderCursor;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PurchaseServiceImplTest {
+
+    private final CartMapper cartMapper = Mockito.mock(CartMapper.class);
+    private final UserMapper userMapper = Mockito.mock(UserMapper.class);
+    private final LedgerMapper ledgerMapper = Mockito.mock(LedgerMapper.class);
+    private final PurchaseServiceImpl service = new PurchaseServiceImpl();
+    private final LoginUser loginUser = Mockito.mock(LoginUser.class);
+
+    PurchaseServiceImplTest() {
+        ReflectionTestUtils.setField(service, "cartMapper", cartMapper);
+        ReflectionTestUtils.setField(service, "userMapper", userMapper);
+        ReflectionTestUtils.setField(service, "ledgerMapper", ledgerMapper);
+        MysqlCartStore cartStore = new MysqlCartStore();
+        ReflectionTestUtils.setField(cartStore, "cartMapper", cartMapper);
+        ReflectionTestUtils.setField(service, "cartStore", cartStore);
+        when(loginUser.getUserId()).thenReturn(7L);
+    }
+
+    //20 行的购物车：锁行、扣款、记流水、标记付款共 4 条语句，扣的是所有行的总价
+    @Test
+    void checkoutOfTwentyLinesUsesConstantRoundTripsAndDebitsTheWholeTotal() {
+        List<Integer> ids = IntStream.rangeClosed(1, 20).boxed().toList();
+        List<CartDTO> carts = new ArrayList<>();
+        ids.forEach(id -> carts.add(new CartDTO(id, 7L, id, 2, false, 1.5, null)));
+        when(cartMapper.selectUnpaidCartsForUpdate(eq(7L), anyCollection())).thenReturn(carts);
+        when(userMapper.debit(7L, 60.0)).thenReturn(1);
+
+        assertEquals(1, service.goToPayCart(loginUser, ids));
+
+        ArgumentCaptor<LedgerPO> ledger = ArgumentCaptor.forClass(LedgerPO.class);
+        verify(ledgerMapper).insertLedger(ledger.capture());
+        assertEquals(-60.0, ledger.getValue().getAmount());
+        assertEquals(LedgerPO.CART, ledger.getValue().getReason());
+        assertEquals(7L, ledger.getValue().getUserId());
+        verify(cartMapper).updatePayedBatch(anyCollection(), any());
+        verify(cartMapper, times(1)).selectUnpaidCartsForUpdate(anyLong(), anyCollection());
+        verify(userMapper, times(1)).debit(7L, 60.0);
+        verifyNoMoreInteractions(cartMapper, userMapper, ledgerMapper);
+    }
+
+    @Test
+    void missingOrAlreadyPaidCartAbortsWithoutDebit() {
+        when(cartMapper.selectUnpaidCartsForUpdate(eq(7L), anyCollection()))
+                .thenReturn(List.of(new CartDTO(1, 7L, 1, 1, false, 10, null)));
+
+        assertEquals(0, service.goToPayCart(loginUser, List.of(1, 2)));
+
+        verifyNoInteractions(userMapper, ledgerMapper);
+        verify(cartMapper, never()).updatePayedBatch(anyCollection(), any());
+    }
+
+    @Test
+    void insufficientBalanceLeavesCartsUnpaid() {
+        when(cartMapper.selectUnpaidCartsForUpdate(eq(7L), anyCollection()))
+                .thenReturn(List.of(new CartDTO(1, 7L, 1, 3, false, 10, null)));
+        when(userMapper.debit(7L, 30.0)).thenReturn(0);
+
+        assertEquals(0, service.goToPayCart(loginUser, List.of(1)));
+
+        verifyNoInteractions(ledgerMapper);
+        verify(cartMapper, never()).updatePayedBatch(anyCollection(), any());
+    }
+
+    //多查一行判断下一页，游标指向本页最后一行，下一页从它之后开始
+    @Test
+    void orderPageReturnsCursorOfLastRowOnlyWhenMoreRowsExist() {
+        LocalDateTime t = LocalDateTime.of(2026, 1, 2, 3, 4, 5);
+        List<CartDTO> rows = List.of(new CartDTO(9, 7L, 1, 1, true, 2, t),
+                new CartDTO(8, 7L, 2, 1, true, 2, t), new CartDTO(3, 7L, 3, 1, true, 2, t.minusDays(1)));
+        when(cartMapper.selectPayedCartPage(7L, null, 0, 3)).thenReturn(new ArrayList<>(rows));
+
+        CursorPageDTO<CartDTO> first = service.selectPayedCartPage(loginUser, null, 2);
+        assertEquals(2, first.getItems().size());
+        OrderCursor cursor = OrderCursor.decode(first.getNextCursor());
+        assertEquals(new OrderCursor(t, 8), cursor);
+
+        when(cartMapper.selectPayedCartPage(7L, t, 8, 3)).thenReturn(new ArrayList<>(rows.subList(2, 3)));
+        CursorPageDTO<CartDTO> second = service.selectPayedCartPage(loginUser, cursor, 2);
+        assertEquals(1, second.getItems().size());
+        assertNull(second.getNextCursor());
+    }
+
+    //格式不对的项不交给存储，其余项按存储返回的影响行数给出结果，顺序与请求一致
+    @Test
+    void bulkUpdateReportsPerLineStatus() {
+        CartStore store = Mockito.mock(CartStore.class);
+        ReflectionTestUtils.setField(service, "cartStore", store);
+        List<CartUpdateDTO> updates = List.of(new CartUpdateDTO(1, null, 3), new CartUpdateDTO(1, 2, 1),
+                new CartUpdateDTO(null, 5, 0), new CartUpdateDTO(4, null, 2), new CartUpdateDTO(6, null, -1));
+        when(store.updateLines(7L, List.of(updates.get(0), updates.get(2), updates.get(3)))).thenReturn(new int[]{1, 1, 0});
+
+        List<String> statuses = service.updateCarts(loginUser, updates).stream().map(CartUpdateResultDTO::getStatus).toList();
+
+        assertEquals(List.of(CartUpdateResultDTO.UPDATED, CartUpdateResultDTO.INVALID, CartUpdateResultDTO.DELETED,
+                CartUpdateResultDTO.NOT_FOUND, CartUpdateResultDTO.INVALID), statuses);
+    }
+}
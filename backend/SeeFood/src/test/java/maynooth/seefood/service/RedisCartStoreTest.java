@@ -0,0 +1,112 @@
+package maynooth.seefood.service;
+
+import maynooth.seefood.index.IngredientDictionary;
+import maynooth.seefood.index.SeafoodCatalog;
+import maynooth.seefood.mapper.CartMapper;
+import maynooth.seefood.mapper.IngredientMapper;
+import maynooth.seefood.mapper.SeafoodMapper;
+import maynooth.seefood.pojo.DTO.CartDTO;
+import maynooth.seefood.pojo.PO.SeafoodPO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 需要本机 6379 端口上的 Redis（-Dredis.host 可改），连不上时跳过
+ */
+class RedisCartStoreTest {
+
+    private static final long USER = 990_000_001L;
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private final SeafoodCatalog catalog = Mockito.mock(SeafoodCatalog.class);
+    private final CartMapper cartMapper = Mockito.mock(CartMapper.class);
+    private RedisCartStore store;
+
+    @BeforeEach
+    void connect() {
+        connectionFactory = new LettuceConnectionFactory(System.getProperty("redis.host", "localhost"), 6379);
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        boolean reachable;
+        try {
+            connectionFactory.start();
+            reachable = "PONG".equals(redisTemplate.execute(connection -> connection.ping(), true));
+        } catch (Exception e) {
+            reachable = false;
+        }
+        assumeTrue(reachable, "no local Redis");
+        redisTemplate.delete(List.of("seefood:cart:" + USER + ":seafood", "seefood:cart:" + USER + ":ingredient"));
+        when(catalog.isReady()).thenReturn(true);
+        when(catalog.get(1)).thenReturn(new SeafoodPO(1, "Cod", null, null, 0, 0, null, 4.5));
+        when(catalog.get(2)).thenReturn(new SeafoodPO(2, "Crab", null, null, 0, 0, null, 10));
+        store = new RedisCartStore(redisTemplate, catalog, Mockito.mock(SeafoodMapper.class),
+                Mockito.mock(IngredientDictionary.class), cartMapper, Mockito.mock(IngredientMapper.class), Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void close() {
+        if (store != null) {
+            redisTemplate.delete(List.of("seefood:cart:" + USER + ":seafood", "seefood:cart:" + USER + ":ingredient"));
+        }
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void addAndUpdateAreHashIncrements() {
+        assertEquals(1, store.addSeafood(USER, 1));
+        assertEquals(1, store.addSeafood(USER, 1));
+        assertEquals(1, store.addSeafood(USER, 2));
+        assertEquals(0, store.updateSeafood(USER, 3, 5));
+        assertEquals(1, store.updateSeafood(USER, 2, 4));
+
+        List<CartDTO> cart = store.seafoodCart(USER);
+        assertEquals(2, cart.size());
+        assertEquals(2, cart.get(0).getCount());
+        assertEquals(4.5, cart.get(0).getPrice());
+        assertEquals(4, cart.get(1).getCount());
+
+        assertEquals(1, store.updateSeafood(USER, 1, 0));
+        assertEquals(1, store.seafoodCart(USER).size());
+    }
+
+    @Test
+    void reserveTakesLinesAndReleasePutsThemBack() {
+        store.addSeafood(USER, 1);
+        store.addSeafood(USER, 2);
+
+        assertNull(store.reserveSeafood(USER, List.of(1, 3)));
+        List<CartDTO> lines = store.reserveSeafood(USER, List.of(1, 2));
+        assertEquals(2, lines.size());
+        // 已经被占住的行，第二次结账拿不到
+        assertNull(store.reserveSeafood(USER, List.of(1)));
+        assertTrue(store.seafoodCart(USER).isEmpty());
+
+        store.releaseSeafood(USER, lines);
+        assertEquals(2, store.seafoodCart(USER).size());
+    }
+
+    @Test
+    void completeWritesPaidRowsToMysql() {
+        store.addSeafood(USER, 2);
+        List<CartDTO> lines = store.reserveSeafood(USER, List.of(2));
+
+        store.completeSeafood(USER, lines, LocalDateTime.now());
+
+        verify(cartMapper).insertPaidCarts(eq(USER), eq(lines), any());
+        assertTrue(store.seafoodCart(USER).isEmpty());
+    }
+}
@@ -0,0 +1,63 @@
+package maynooth.seefood.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import maynooth.seefood.mapper.SeafoodMapper;
+import maynooth.seefood.pojo.PO.SeafoodPO;
+import maynooth.seefood.pojo.Result;
+import org.apache.ibatis.cursor.Cursor;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SeafoodServiceImplTest {
+
+    private final SeafoodMapper seafoodMapper = Mockito.mock(SeafoodMapper.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SeafoodServiceImpl service = new SeafoodServiceImpl(2);
+
+    SeafoodServiceImplTest() {
+        ReflectionTestUtils.setField(service, "seafoodMapper", seafoodMapper);
+        ReflectionTestUtils.setField(service, "objectMapper", objectMapper);
+    }
+
+    //流式写出的内容要和普通接口一样能按 Result 解析
+    @Test
+    @SuppressWarnings("unchecked")
+    void streamedBodyIsAResultEnvelope() throws Exception {
+        Cursor<SeafoodPO> cursor = Mockito.mock(Cursor.class);
+        when(cursor.iterator()).thenReturn(List.of(
+                new SeafoodPO(1, "Cod", "white fish", "h1", 30, 1, "FISH", 4.5),
+                new SeafoodPO(2, "Crab", "shellfish", "h2", 10, 6, "SHELL", 10)).iterator());
+        when(seafoodMapper.streamSeafoodInPopularity()).thenReturn(cursor);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.writeTop(out);
+
+        Result result = objectMapper.readValue(out.toByteArray(), Result.class);
+        assertEquals(200, result.getCode());
+        assertEquals("Successful", result.getMessage());
+        List<Map<String, Object>> data = (List<Map<String, Object>>) result.getData();
+        assertEquals(2, data.size());
+        assertEquals("Cod", data.get(0).get("seafoodName"));
+        assertEquals(2, data.get(1).get("seafoodId"));
+        verify(cursor).close();
+    }
+
+    @Test
+    void limitsConcurrentStreams() {
+        assertTrue(service.tryStartStream());
+        assertTrue(service.tryStartStream());
+        assertFalse(service.tryStartStream());
+
+        service.endStream();
+
+        assertTrue(service.tryStartStream());
+    }
+}
@@ -0,0 +1,31 @@
+package maynooth.seefood.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileTransferUtilTest {
+
+    @Test
+    void parseRange() {
+        assertArrayEquals(new long[]{0, 99}, FileTransferUtil.parseRange("bytes=0-99", 1000));
+        assertArrayEquals(new long[]{500, 999}, FileTransferUtil.parseRange("bytes=500-", 1000));
+        assertArrayEquals(new long[]{900, 999}, FileTransferUtil.parseRange("bytes=-100", 1000));
+        assertArrayEquals(new long[]{0, 999}, FileTransferUtil.parseRange("bytes=-5000", 1000));
+        assertArrayEquals(new long[]{10, 999}, FileTransferUtil.parseRange("bytes=10-5000", 1000));
+    }
+
+    @Test
+    void unsatisfiableRange() {
+        assertNull(FileTransferUtil.parseRange("bytes=1000-", 1000));
+        assertNull(FileTransferUtil.parseRange("bytes=50-10", 1000));
+        assertNull(FileTransferUtil.parseRange("bytes=-0", 1000));
+    }
+
+    @Test
+    void ignoredRange() {
+        assertEquals(0, FileTransferUtil.parseRange("bytes=0-1,5-9", 1000).length);
+        assertEquals(0, FileTransferUtil.parseRange("items=0-1", 1000).length);
+        assertEquals(0, FileTransferUtil.parseRange("bytes=a-b", 1000).length);
+    }
+}
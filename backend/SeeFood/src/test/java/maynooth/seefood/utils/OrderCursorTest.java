@@ -0,0 +1,30 @@
+package maynooth.seefood.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderCursorTest {
+
+    @Test
+    void roundTripsThroughToken() {
+        OrderCursor cursor = new OrderCursor(LocalDateTime.of(2025, 3, 1, 12, 30, 5), 42);
+
+        assertEquals(cursor, OrderCursor.decode(cursor.encode()));
+        assertNull(OrderCursor.decode(null));
+        assertNull(OrderCursor.decode(""));
+    }
+
+    //没有付款时间的行不能成为游标，旧版本编码出来的 "null|id" 按无效游标处理
+    @Test
+    void rejectsMissingOrderTime() {
+        assertThrows(NullPointerException.class, () -> new OrderCursor(null, 3));
+        String legacy = Base64.getUrlEncoder().withoutPadding().encodeToString("null|3".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class, () -> OrderCursor.decode(legacy));
+        assertThrows(IllegalArgumentException.class, () -> OrderCursor.decode("not-a-cursor"));
+    }
+}